@@ -1,7 +1,40 @@
 package reactivejava;
 
+import reactivejava.disposables.CompositeDisposable;
+import reactivejava.disposables.Disposable;
+import rx.functions.Action2;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
 /**
- * Created by mgp on 11/29/15.
+ * Creates signals that send events to an {@link Observer}, performing any side effects each time it is started.
+ *
+ * @param <V> the type of values sent by started signals
  */
-public class SignalProducer<V> {
+public final class SignalProducer<V> {
+    private final Action2<Observer<V>, CompositeDisposable> startHandler;
+
+    /**
+     * Constructs a {@link SignalProducer} that will invoke the given handler once for each invocation of
+     * {@link #start(Observer)}.
+     *
+     * The handler is passed the observer to send events to, and a {@link CompositeDisposable} to which it should add
+     * any disposables that stop its work. That composite is disposed when the started signal is disposed.
+     */
+    public SignalProducer(final Action2<Observer<V>, CompositeDisposable> startHandler) {
+        this.startHandler = checkNotNull(startHandler);
+    }
+
+    /**
+     * Starts a signal that sends its events to the given observer.
+     *
+     * @return a disposable that stops the signal and releases its resources
+     */
+    public Disposable start(final Observer<V> observer) {
+        checkNotNull(observer);
+
+        final CompositeDisposable disposable = new CompositeDisposable();
+        startHandler.call(observer, disposable);
+        return disposable;
+    }
 }
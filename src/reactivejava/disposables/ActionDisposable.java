@@ -2,28 +2,70 @@ package reactivejava.disposables;
 
 import rx.functions.Action0;
 
-import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 
 /**
  * A {@link Disposable} that will run an action upon disposal.
+ *
+ * The action is held in a field of this object and swapped out atomically upon disposal, so that it runs exactly
+ * once, and so that no separate atomic holder is allocated per instance. If constructed with a {@code null} action,
+ * this only flips {@link #isDisposed()} upon disposal, like a {@link SimpleDisposable}.
+ *
+ * An instance sampled by the {@link DisposableLeakDetector} keeps its tracker in a wrapper around its action, rather
+ * than in a field, so that unsampled instances hold nothing but the action.
  */
 public final class ActionDisposable implements Disposable {
-    private final AtomicReference<Action0> actionReference;
+    private static final AtomicReferenceFieldUpdater<ActionDisposable, Action0> ACTION =
+            AtomicReferenceFieldUpdater.newUpdater(ActionDisposable.class, Action0.class, "action");
+
+    // Stands in for a null action, since a null field means that this has been disposed.
+    private static final Action0 NO_ACTION = new Action0() {
+        @Override
+        public void call() {
+        }
+    };
+
+    /**
+     * The action of a sampled instance, along with its leak tracker.
+     */
+    private static final class TrackedAction implements Action0 {
+        private final Action0 action;
+        private final DisposableLeakDetector.Tracker leakTracker;
+
+        private TrackedAction(final Action0 action, final DisposableLeakDetector.Tracker leakTracker) {
+            this.action = action;
+            this.leakTracker = leakTracker;
+        }
+
+        @Override
+        public void call() {
+            action.call();
+        }
+    }
+
+    private volatile Action0 action;
 
     public ActionDisposable(final Action0 action) {
-        actionReference = new AtomicReference<>(action);
+        final Action0 nonNullAction = (action != null) ? action : NO_ACTION;
+        final DisposableLeakDetector.Tracker leakTracker = DisposableLeakDetector.track(this);
+        this.action = (leakTracker != null) ? new TrackedAction(nonNullAction, leakTracker) : nonNullAction;
     }
 
     @Override
     public boolean isDisposed() {
-        return actionReference.get() == null;
+        return action == null;
     }
 
     @Override
     public void dispose() {
-        final Action0 oldAction = actionReference.getAndSet(null);
+        final Action0 oldAction = ACTION.getAndSet(this, null);
         if (oldAction == null) {
-            oldAction.call();
+            return;
+        }
+
+        if (oldAction instanceof TrackedAction) {
+            ((TrackedAction) oldAction).leakTracker.onDisposed();
         }
+        oldAction.call();
     }
 }
@@ -1,37 +1,52 @@
 package reactivejava.disposables;
 
-import reactivejava.Bag;
+import reactivejava.schedulers.Scheduler;
 import rx.functions.Action0;
-import rx.functions.Action1;
-import rx.functions.Func1;
 
 import java.lang.ref.WeakReference;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.function.BiConsumer;
 
 /**
  * A {@link Disposable} that will dispose of any number of other {@link Disposable} instances.
+ *
+ * The contained disposables form a lock-free doubly linked list, newest first, so that they are disposed in the reverse
+ * of the order in which they were added. Each {@link DisposableHandle} is itself a node of that list, and removed
+ * handles are unlinked in batches, at a cost proportional to the number removed.
  */
 public final class CompositeDisposable implements Disposable {
-    private final ReactiveJavaAtomicReference<Bag<Disposable>> disposables;
+    /**
+     * Once this many handles have been removed but are still linked, the next removal unlinks them.
+     */
+    private static final int PURGE_THRESHOLD = 64;
 
     /**
      * Represents a handle to a {@link Disposable} previously added to a {@link CompositeDisposable}.
      */
     public static final class DisposableHandle {
-        private final AtomicReference<Bag.RemovalToken> bagToken;
-        private final WeakReference<CompositeDisposable> disposable;
+        private static final AtomicReferenceFieldUpdater<DisposableHandle, Disposable> DISPOSABLE =
+                AtomicReferenceFieldUpdater.newUpdater(DisposableHandle.class, Disposable.class, "disposable");
 
-        private static final DisposableHandle EMPTY = new DisposableHandle();
+        private static final DisposableHandle EMPTY = new DisposableHandle(null, null);
 
-        private DisposableHandle() {
-            this.bagToken = new AtomicReference<>();
-            this.disposable = new WeakReference<>(null);
-        }
+        private volatile Disposable disposable;
+        private volatile WeakReference<CompositeDisposable> owner;
+        // The next older handle, and the next newer one. Once both are set, only a purge modifies them.
+        private volatile DisposableHandle next;
+        private volatile DisposableHandle prev;
+        // The next handle waiting to be unlinked. Published by the compare-and-set that pushes this handle.
+        private DisposableHandle nextRemoved;
 
-        private DisposableHandle(Bag.RemovalToken bagToken, CompositeDisposable disposable) {
-            this.bagToken = new AtomicReference<>(bagToken);
-            this.disposable = new WeakReference<>(disposable);
+        private DisposableHandle(final Disposable disposable, final WeakReference<CompositeDisposable> owner) {
+            this.disposable = disposable;
+            this.owner = owner;
         }
 
         /**
@@ -40,78 +55,175 @@ public final class CompositeDisposable implements Disposable {
          * This is useful to minimize memory growth, by removing {@link Disposable} instances that are no longer needed.
          */
         public void remove() {
-            final Bag.RemovalToken removalToken = bagToken.getAndSet(null);
-            final CompositeDisposable disposable = this.disposable.get();
-            if ((removalToken != null) && (disposable != null)) {
-                disposable.disposables.modify(new Action1<Bag<Disposable>>() {
-                    @Override
-                    public void call(Bag<Disposable> bag) {
-                        bag.remove(removalToken);
-                    }
-                });
+            if (DISPOSABLE.getAndSet(this, null) != null) {
+                final WeakReference<CompositeDisposable> ownerReference = this.owner;
+                final CompositeDisposable owner = (ownerReference != null) ? ownerReference.get() : null;
+                if (owner != null) {
+                    owner.onHandleRemoved(this);
+                }
             }
         }
     }
 
+    // Marks the list as disposed, after which nothing more can be added.
+    private static final DisposableHandle DISPOSED = new DisposableHandle(null, null);
+
+    private final AtomicReference<DisposableHandle> head = new AtomicReference<>();
+    // Shared by every handle, so that a handle never keeps this alive.
+    private final WeakReference<CompositeDisposable> selfReference = new WeakReference<>(this);
+    // A stack of removed handles that are still linked, and its size.
+    private final AtomicReference<DisposableHandle> removedHead = new AtomicReference<>();
+    private final AtomicInteger removedCount = new AtomicInteger();
+    private final AtomicBoolean purging = new AtomicBoolean();
+    private final DisposableLeakDetector.Tracker leakTracker = DisposableLeakDetector.track(this);
+
     /**
      * Initializes an empty {@link CompositeDisposable}.
      */
-    CompositeDisposable() {
+    public CompositeDisposable() {
         this(Collections.<Disposable>emptyList());
     }
 
     /**
      * Constructs a {@link CompositeDisposable} containing the given {@link Iterable} of {@link Disposable} instances.
      */
-    CompositeDisposable(Iterable<Disposable> disposables) {
-        final Bag<Disposable> bag = new Bag<>();
-
+    public CompositeDisposable(Iterable<Disposable> disposables) {
         for (Disposable disposable : disposables) {
-            bag.insert(disposable);
+            add(disposable);
         }
-
-        this.disposables = new ReactiveJavaAtomicReference<>(bag);
     }
 
     @Override
     public boolean isDisposed() {
-        return disposables.get() == null;
+        return head.get() == DISPOSED;
     }
 
     @Override
     public void dispose() {
-        final Bag<Disposable> disposables = this.disposables.getAndSet(null);
-        for (int i = disposables.size() - 1; i >= 0; --i) {
-            disposables.get(i).dispose();
+        DisposableHandle handle = head.getAndSet(DISPOSED);
+        if (handle == DISPOSED) {
+            return;
+        }
+        if (leakTracker != null) {
+            leakTracker.onDisposed();
+        }
+
+        for (; handle != null; handle = handle.next) {
+            handle.owner = null;
+            // Whoever swaps out the disposable first owns it, so a concurrent remove() cannot also see it.
+            final Disposable disposable = DisposableHandle.DISPOSABLE.getAndSet(handle, null);
+            if (disposable != null) {
+                disposable.dispose();
+            }
+        }
+    }
+
+    /**
+     * Disposes of this {@link CompositeDisposable} like {@link #dispose()}, but on the given scheduler, and with every
+     * contained {@link CompositeDisposable} disposed in its own action, so that independent subtrees are disposed in
+     * parallel if the scheduler allows it.
+     *
+     * Within each {@link CompositeDisposable}, the contained disposables that are not themselves composites are still
+     * disposed in the reverse of the order in which they were added. If a disposable throws, the rest of the tree is
+     * still disposed, and the returned future completes with the first such error.
+     *
+     * @return a future that completes once the whole tree has been disposed, or immediately if this
+     * {@link CompositeDisposable} has already been disposed
+     */
+    public CompletableFuture<Void> disposeOn(final Scheduler scheduler) {
+        final CompletableFuture<Void> completion = new CompletableFuture<>();
+
+        final DisposableHandle first = head.getAndSet(DISPOSED);
+        if (first == DISPOSED) {
+            completion.complete(null);
+            return completion;
+        }
+        if (leakTracker != null) {
+            leakTracker.onDisposed();
+        }
+
+        try {
+            scheduler.schedule(new Action0() {
+                @Override
+                public void call() {
+                    disposeSubtree(first, scheduler, completion);
+                }
+            });
+        } catch (RuntimeException e) {
+            // The scheduler rejected the work, but this has already been marked as disposed, so finish here.
+            disposeSubtree(first, scheduler, completion);
+        }
+        return completion;
+    }
+
+    private static void disposeSubtree(final DisposableHandle first,
+                                       final Scheduler scheduler,
+                                       final CompletableFuture<Void> completion) {
+        final List<CompletableFuture<Void>> subtrees = new ArrayList<>();
+        Throwable firstError = null;
+
+        for (DisposableHandle handle = first; handle != null; handle = handle.next) {
+            handle.owner = null;
+            final Disposable disposable = DisposableHandle.DISPOSABLE.getAndSet(handle, null);
+            if (disposable == null) {
+                continue;
+            }
+
+            try {
+                if (disposable instanceof CompositeDisposable) {
+                    subtrees.add(((CompositeDisposable) disposable).disposeOn(scheduler));
+                } else {
+                    disposable.dispose();
+                }
+            } catch (Throwable t) {
+                if (firstError == null) {
+                    firstError = t;
+                }
+            }
         }
+
+        final Throwable error = firstError;
+        CompletableFuture.allOf(subtrees.toArray(new CompletableFuture<?>[subtrees.size()]))
+                .whenComplete(new BiConsumer<Void, Throwable>() {
+                    @Override
+                    public void accept(final Void result, final Throwable subtreeError) {
+                        if (error != null) {
+                            completion.completeExceptionally(error);
+                        } else if (subtreeError != null) {
+                            completion.completeExceptionally(subtreeError);
+                        } else {
+                            completion.complete(null);
+                        }
+                    }
+                });
     }
 
     /**
      * Adds the given {@link Disposable} to the list, then returns a {@link DisposableHandle} which can be used to
      * opaquely remove the disposable later (if desired).
+     *
+     * If this {@link CompositeDisposable} has already been disposed, then the given disposable is disposed instead.
      */
     public DisposableHandle add(final Disposable disposable) {
         if (disposable == null) {
             return DisposableHandle.EMPTY;
         }
 
-        final DisposableHandle handle = disposables.modify(new Func1<Bag<Disposable>, DisposableHandle>() {
-            @Override
-            public DisposableHandle call(final Bag<Disposable> bag) {
-                if (bag != null) {
-                    final Bag.RemovalToken token = bag.insert(disposable);
-                    return new DisposableHandle(token, CompositeDisposable.this);
-                } else {
-                    return null;
-                }
+        final DisposableHandle handle = new DisposableHandle(disposable, selfReference);
+        while (true) {
+            final DisposableHandle prevHead = head.get();
+            if (prevHead == DISPOSED) {
+                disposable.dispose();
+                return DisposableHandle.EMPTY;
             }
-        });
 
-        if (handle != null) {
-            return handle;
-        } else {
-            disposable.dispose();
-            return DisposableHandle.EMPTY;
+            handle.next = prevHead;
+            if (head.compareAndSet(prevHead, handle)) {
+                if (prevHead != null) {
+                    prevHead.prev = handle;
+                }
+                return handle;
+            }
         }
     }
 
@@ -121,4 +233,62 @@ public final class CompositeDisposable implements Disposable {
     public DisposableHandle add(final Action0 action) {
         return add(new ActionDisposable(action));
     }
+
+    private void onHandleRemoved(final DisposableHandle handle) {
+        pushRemoved(handle);
+        if ((removedCount.incrementAndGet() >= PURGE_THRESHOLD) && purging.compareAndSet(false, true)) {
+            try {
+                purge();
+            } finally {
+                purging.set(false);
+            }
+        }
+    }
+
+    private void pushRemoved(final DisposableHandle handle) {
+        while (true) {
+            final DisposableHandle prevRemoved = removedHead.get();
+            handle.nextRemoved = prevRemoved;
+            if (removedHead.compareAndSet(prevRemoved, handle)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Unlinks the removed handles, visiting only those handles.
+     *
+     * A handle is skipped until the handle added after it, and the handle itself, have both finished linking, so that a
+     * purge never races with {@link #add(Disposable)}; this also keeps the head linked. Skipped handles are unlinked by
+     * a later purge. Only one thread purges at a time, and once linked, nothing else modifies a handle's links, so this
+     * needs no locking.
+     */
+    private void purge() {
+        DisposableHandle handle = removedHead.getAndSet(null);
+        final DisposableHandle first = head.get();
+        if ((first == null) || (first == DISPOSED)) {
+            return;
+        }
+
+        int unlinkedCount = 0;
+        while (handle != null) {
+            final DisposableHandle nextRemoved = handle.nextRemoved;
+            handle.nextRemoved = null;
+
+            final DisposableHandle prev = handle.prev;
+            final DisposableHandle next = handle.next;
+            if ((prev != null) && ((next == null) || (next.prev != null))) {
+                prev.next = next;
+                if (next != null) {
+                    next.prev = prev;
+                }
+                handle.owner = null;
+                ++unlinkedCount;
+            } else {
+                pushRemoved(handle);
+            }
+            handle = nextRemoved;
+        }
+        removedCount.addAndGet(-unlinkedCount);
+    }
 }
@@ -0,0 +1,154 @@
+package reactivejava.disposables;
+
+import com.google.common.base.MoreObjects;
+import reactivejava.schedulers.DateScheduler;
+import rx.functions.Action0;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Moves expensive disposal off the calling thread, by queueing it to run in batches on a {@link DateScheduler}.
+ *
+ * A disposable returned by {@link #defer(Disposable)} reports itself as disposed as soon as it is disposed, but only
+ * queues its inner disposable. A batch is disposed at most {@code maxDelay} after the first disposal queued into it,
+ * or as soon as {@code maxBatchSize} disposals are queued, whichever comes first.
+ */
+public final class DeferredDisposer {
+    private static final AtomicReferenceFieldUpdater<DeferredDisposable, Disposable> INNER_DISPOSABLE =
+            AtomicReferenceFieldUpdater.newUpdater(DeferredDisposable.class, Disposable.class, "innerDisposable");
+
+    private final class DeferredDisposable implements Disposable {
+        private volatile Disposable innerDisposable;
+
+        private DeferredDisposable(final Disposable innerDisposable) {
+            this.innerDisposable = innerDisposable;
+        }
+
+        @Override
+        public boolean isDisposed() {
+            return innerDisposable == null;
+        }
+
+        @Override
+        public void dispose() {
+            final Disposable innerDisposable = INNER_DISPOSABLE.getAndSet(this, null);
+            if (innerDisposable != null) {
+                enqueue(innerDisposable);
+            }
+        }
+    }
+
+    private final DateScheduler scheduler;
+    private final long maxDelay;
+    private final int maxBatchSize;
+
+    private final Queue<Disposable> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queuedCount = new AtomicInteger();
+    private final AtomicBoolean delayedDrainScheduled = new AtomicBoolean();
+    private final AtomicBoolean immediateDrainScheduled = new AtomicBoolean();
+
+    private final Action0 delayedDrain = new Action0() {
+        @Override
+        public void call() {
+            drain(delayedDrainScheduled);
+        }
+    };
+
+    private final Action0 immediateDrain = new Action0() {
+        @Override
+        public void call() {
+            drain(immediateDrainScheduled);
+        }
+    };
+
+    /**
+     * Constructs a {@link DeferredDisposer}.
+     *
+     * @param scheduler the scheduler on which queued disposals run
+     * @param maxDelay the longest a queued disposal may wait for its batch, in units of the scheduler's dates
+     * @param maxBatchSize the number of queued disposals that causes a batch to run immediately
+     */
+    public DeferredDisposer(final DateScheduler scheduler, final long maxDelay, final int maxBatchSize) {
+        checkArgument(maxDelay >= 0, "maxDelay < 0: %s", maxDelay);
+        checkArgument(maxBatchSize > 0, "maxBatchSize <= 0: %s", maxBatchSize);
+
+        this.scheduler = checkNotNull(scheduler);
+        this.maxDelay = maxDelay;
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    /**
+     * @return a disposable that, when disposed, queues the given disposable to be disposed in a later batch
+     */
+    public Disposable defer(final Disposable disposable) {
+        return new DeferredDisposable(checkNotNull(disposable));
+    }
+
+    /**
+     * @return the number of disposals queued but not yet run
+     */
+    public int getQueuedCount() {
+        return queuedCount.get();
+    }
+
+    /**
+     * Queues the disposable, and schedules a drain if none is scheduled. If the scheduler throws, the disposable stays
+     * queued and the exception is rethrown, and the next call tries to schedule the drain again.
+     */
+    private void enqueue(final Disposable disposable) {
+        queue.add(disposable);
+        if (queuedCount.incrementAndGet() >= maxBatchSize) {
+            if (immediateDrainScheduled.compareAndSet(false, true)) {
+                try {
+                    scheduler.schedule(immediateDrain);
+                } catch (RuntimeException e) {
+                    immediateDrainScheduled.set(false);
+                    throw e;
+                }
+            }
+        } else if (delayedDrainScheduled.compareAndSet(false, true)) {
+            try {
+                scheduler.scheduleAfterDate(scheduler.getCurrentDate() + maxDelay, delayedDrain);
+            } catch (RuntimeException e) {
+                delayedDrainScheduled.set(false);
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Disposes everything queued. Only the flag of this kind of drain is reset, since a drain of the other kind may
+     * still be scheduled, and resetting its flag too would let another be scheduled alongside it.
+     */
+    private void drain(final AtomicBoolean drainScheduled) {
+        // Reset the flag before polling, so that a disposal queued after the last poll schedules another drain.
+        drainScheduled.set(false);
+
+        for (Disposable disposable = queue.poll(); disposable != null; disposable = queue.poll()) {
+            queuedCount.decrementAndGet();
+            try {
+                disposable.dispose();
+            } catch (Throwable t) {
+                final Thread thread = Thread.currentThread();
+                thread.getUncaughtExceptionHandler().uncaughtException(thread, t);
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("scheduler", scheduler)
+                .add("maxDelay", maxDelay)
+                .add("maxBatchSize", maxBatchSize)
+                .add("queuedCount", queuedCount.get())
+                .toString();
+    }
+}
@@ -0,0 +1,147 @@
+package reactivejava.disposables;
+
+import com.google.common.base.MoreObjects;
+import rx.functions.Action1;
+
+import java.lang.ref.PhantomReference;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Detects {@link Disposable} instances that are garbage collected without having been disposed.
+ *
+ * Detection is off by default. When enabled with {@link #setSamplingInterval(int)}, about one in every
+ * {@code samplingInterval} newly constructed {@link ActionDisposable}, {@link SerialDisposable} and
+ * {@link CompositeDisposable} instances is tracked through a phantom reference, along with the stack at which it was
+ * constructed. Untracked instances pay only for one volatile read when constructed and one null check when disposed.
+ *
+ * Leaks are found whenever a sampled disposable is constructed, or when {@link #checkForLeaks()} is called, and are
+ * passed to the listener set by {@link #setLeakListener(Action1)}.
+ */
+public final class DisposableLeakDetector {
+    /**
+     * A disposable that was garbage collected without having been disposed.
+     */
+    public static final class Leak {
+        /**
+         * The name of the class of the leaked disposable.
+         */
+        public final String disposableClassName;
+
+        /**
+         * An exception whose stack trace is the stack at which the leaked disposable was constructed.
+         */
+        public final Throwable allocationSite;
+
+        private Leak(final String disposableClassName, final Throwable allocationSite) {
+            this.disposableClassName = disposableClassName;
+            this.allocationSite = allocationSite;
+        }
+
+        @Override
+        public String toString() {
+            return MoreObjects.toStringHelper(this)
+                    .add("disposableClassName", disposableClassName)
+                    .add("allocationSite", allocationSite)
+                    .toString();
+        }
+    }
+
+    /**
+     * Tracks one sampled disposable, which must call {@link #onDisposed()} when it is disposed.
+     */
+    static final class Tracker extends PhantomReference<Disposable> {
+        private final String disposableClassName;
+        private final Throwable allocationSite;
+
+        private Tracker(final Disposable disposable) {
+            super(disposable, REFERENCE_QUEUE);
+            this.disposableClassName = disposable.getClass().getName();
+            this.allocationSite = new Throwable("Allocation site of leaked " + disposableClassName);
+        }
+
+        void onDisposed() {
+            if (TRACKERS.remove(this)) {
+                clear();
+            }
+        }
+    }
+
+    private static final ReferenceQueue<Disposable> REFERENCE_QUEUE = new ReferenceQueue<>();
+    // Holds every live tracker, since a phantom reference is only enqueued if it is itself reachable.
+    private static final Set<Tracker> TRACKERS = ConcurrentHashMap.newKeySet();
+
+    private static final Action1<Leak> NO_LEAK_LISTENER = new Action1<Leak>() {
+        @Override
+        public void call(final Leak leak) {
+        }
+    };
+
+    private static volatile int samplingInterval;
+    private static volatile Action1<Leak> leakListener = NO_LEAK_LISTENER;
+
+    private DisposableLeakDetector() {
+    }
+
+    /**
+     * Tracks about one in every {@code samplingInterval} disposables constructed from now on, or none if
+     * {@code samplingInterval} is {@code 0}. An interval of {@code 1} tracks every disposable.
+     */
+    public static void setSamplingInterval(final int samplingInterval) {
+        checkArgument(samplingInterval >= 0, "samplingInterval < 0: %s", samplingInterval);
+        DisposableLeakDetector.samplingInterval = samplingInterval;
+    }
+
+    /**
+     * Sets the listener that is passed each detected leak. Until one is set, detected leaks are discarded, so a
+     * listener should be set along with a non-zero sampling interval.
+     */
+    public static void setLeakListener(final Action1<Leak> leakListener) {
+        DisposableLeakDetector.leakListener = checkNotNull(leakListener);
+    }
+
+    /**
+     * @return the number of sampled disposables that have been neither disposed nor reported as leaked
+     */
+    public static int getTrackedCount() {
+        return TRACKERS.size();
+    }
+
+    /**
+     * Reports any sampled disposables that have been garbage collected without being disposed.
+     */
+    public static void checkForLeaks() {
+        for (Reference<? extends Disposable> reference = REFERENCE_QUEUE.poll(); reference != null;
+             reference = REFERENCE_QUEUE.poll()) {
+            final Tracker tracker = (Tracker) reference;
+            if (TRACKERS.remove(tracker)) {
+                leakListener.call(new Leak(tracker.disposableClassName, tracker.allocationSite));
+            }
+        }
+    }
+
+    /**
+     * Called by a newly constructed disposable, which must retain the returned tracker and call
+     * {@link Tracker#onDisposed()} when disposed.
+     *
+     * @return a tracker if the disposable was sampled, or else {@code null}
+     */
+    static Tracker track(final Disposable disposable) {
+        final int samplingInterval = DisposableLeakDetector.samplingInterval;
+        if ((samplingInterval == 0) ||
+                ((samplingInterval > 1) && (ThreadLocalRandom.current().nextInt(samplingInterval) != 0))) {
+            return null;
+        }
+
+        checkForLeaks();
+        final Tracker tracker = new Tracker(disposable);
+        TRACKERS.add(tracker);
+        return tracker;
+    }
+}
@@ -1,37 +1,30 @@
 package reactivejava.disposables;
 
-import reactivejava.Atomic;
-import rx.functions.Func1;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 
 /**
  * A {@link Disposable} that will optionally dispose of another {@link Disposable}.
+ *
+ * The inner disposable is held in a single atomic field, which holds a sentinel once this is disposed, so swapping it
+ * is one compare-and-set and allocates nothing.
  */
 public final class SerialDisposable implements Disposable {
-    private static final class State implements Atomic.Copyable<State> {
-        private Disposable innerDisposable;
-        private boolean disposed;
+    private static final AtomicReferenceFieldUpdater<SerialDisposable, Disposable> INNER_DISPOSABLE =
+            AtomicReferenceFieldUpdater.newUpdater(SerialDisposable.class, Disposable.class, "innerDisposable");
 
-        private State() {
-            this(null, false);
+    private static final Disposable DISPOSED = new Disposable() {
+        @Override
+        public boolean isDisposed() {
+            return true;
         }
 
-        private State(Disposable innerDisposable, boolean disposed) {
-            this.innerDisposable = innerDisposable;
-            this.disposed = disposed;
+        @Override
+        public void dispose() {
         }
+    };
 
-        private void disposeInnerDisposable() {
-            if (innerDisposable != null) {
-                innerDisposable.dispose();
-            }
-        }
-
-        public State copy() {
-            return new State(innerDisposable, disposed);
-        }
-    }
-
-    private final ReactiveJavaAtomicReference<State> state = new ReactiveJavaAtomicReference<>(new State());
+    private volatile Disposable innerDisposable;
+    private final DisposableLeakDetector.Tracker leakTracker = DisposableLeakDetector.track(this);
 
     public SerialDisposable() {
         this(null);
@@ -41,46 +34,55 @@ public final class SerialDisposable implements Disposable {
      * Initializes the receiver to dispose of the argument when the {@link SerialDisposable} is disposed.
      */
     public SerialDisposable(final Disposable disposable) {
-        setInnerDisposable(disposable);
+        this.innerDisposable = disposable;
     }
 
     /**
      * @return the inner disposable to dispose of
      */
     public Disposable getInnerDisposable() {
-        return state.get().innerDisposable;
+        final Disposable innerDisposable = this.innerDisposable;
+        return (innerDisposable == DISPOSED) ? null : innerDisposable;
     }
 
     /**
      * Sets the inner disposable to dispose of.
      *
-     * Whenever this value is set (even to the same value!), the previous disposable is automatically disposed.
+     * Whenever this value is set (even to the same value!), the previous disposable is automatically disposed. If this
+     * {@link SerialDisposable} has already been disposed, then the given disposable is disposed instead.
      */
     public void setInnerDisposable(final Disposable disposable) {
-        final State prevState = state.modify(new Func1<State, State>() {
-            @Override
-            public State call(final State state) {
-                state.innerDisposable = disposable;
-                return state;
+        while (true) {
+            final Disposable prevDisposable = innerDisposable;
+            if (prevDisposable == DISPOSED) {
+                if (disposable != null) {
+                    disposable.dispose();
+                }
+                return;
             }
-        });
 
-        prevState.disposeInnerDisposable();
-        if (prevState.disposed) {
-            disposable.dispose();
+            if (INNER_DISPOSABLE.compareAndSet(this, prevDisposable, disposable)) {
+                if (prevDisposable != null) {
+                    prevDisposable.dispose();
+                }
+                return;
+            }
         }
     }
 
     @Override
     public boolean isDisposed() {
-        return state.get().disposed;
+        return innerDisposable == DISPOSED;
     }
 
     @Override
     public void dispose() {
-        State prevState = state.getAndSet(new State(null, true));
-        if (prevState != null) {
-            prevState.disposeInnerDisposable();
+        final Disposable prevDisposable = INNER_DISPOSABLE.getAndSet(this, DISPOSED);
+        if (leakTracker != null) {
+            leakTracker.onDisposed();
+        }
+        if ((prevDisposable != null) && (prevDisposable != DISPOSED)) {
+            prevDisposable.dispose();
         }
     }
 }
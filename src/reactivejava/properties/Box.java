@@ -0,0 +1,18 @@
+package reactivejava.properties;
+
+/**
+ * Holds one value of a property, so that each change is a distinct instance even if the value is equal (or even the
+ * same) as before.
+ */
+final class Box<V> {
+    final V value;
+    /**
+     * Increases with each change to the property, so that computed properties can tell whether it changed.
+     */
+    final long version;
+
+    Box(final V value, final long version) {
+        this.value = value;
+        this.version = version;
+    }
+}
@@ -0,0 +1,40 @@
+package reactivejava.properties;
+
+import com.google.common.base.Objects;
+import reactivejava.Observer;
+
+/**
+ * A {@link ChangeNotifier} for a property whose values are held in {@link Box} instances.
+ */
+abstract class BoxNotifier<V> extends ChangeNotifier<Observer<V>> {
+    private final boolean skipsRepeats;
+
+    // Only accessed by the notifying thread.
+    private Box<V> capturedBox;
+
+    /**
+     * @param skipsRepeats whether a value equal to the one last sent is not sent again
+     */
+    BoxNotifier(final boolean skipsRepeats) {
+        this.skipsRepeats = skipsRepeats;
+    }
+
+    /**
+     * @return the latest value of the property
+     */
+    abstract Box<V> getCurrentBox();
+
+    @Override
+    final boolean captureValue() {
+        final Box<V> currentBox = getCurrentBox();
+        final Box<V> prevBox = capturedBox;
+        capturedBox = currentBox;
+        return (currentBox != prevBox) &&
+                !(skipsRepeats && (prevBox != null) && Objects.equal(prevBox.value, currentBox.value));
+    }
+
+    @Override
+    final void send(final Observer<V> observer) {
+        observer.sendNext(capturedBox.value);
+    }
+}
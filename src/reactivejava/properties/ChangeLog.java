@@ -0,0 +1,167 @@
+package reactivejava.properties;
+
+import reactivejava.Observer;
+import reactivejava.SignalProducer;
+import reactivejava.disposables.CompositeDisposable;
+import rx.functions.Action2;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Records the change sets of a collection property, and sends them to observers.
+ *
+ * The change sets form a linked list, to which edits append. The log itself references only the latest change set,
+ * and each observer of changes references the last one it was sent, so a change set is garbage once every observer
+ * has been sent it. Observers of changes are sent every change set in order, while observers of snapshots may skip
+ * intermediate snapshots, as with {@link ChangeNotifier}.
+ *
+ * @param <S> the type of snapshots
+ * @param <C> the type of changes
+ */
+final class ChangeLog<S, C> {
+    private static final class Entry<S, C> {
+        private final ChangeSet<S, C> changeSet;
+        private final long version;
+        private volatile Entry<S, C> next;
+
+        private Entry(final ChangeSet<S, C> changeSet, final long version) {
+            this.changeSet = changeSet;
+            this.version = version;
+        }
+    }
+
+    private static final class ChangeSubscriber<S, C> {
+        private final Observer<ChangeSet<S, C>> observer;
+        // The last entry sent, which is only accessed by the notifying thread.
+        private Entry<S, C> sentEntry;
+
+        private ChangeSubscriber(final Observer<ChangeSet<S, C>> observer) {
+            this.observer = observer;
+        }
+    }
+
+    /**
+     * Serializes edits, which must hold this while computing their changes and calling {@link #append}.
+     */
+    final ReentrantLock editLock = new ReentrantLock();
+
+    private volatile Entry<S, C> latestEntry;
+
+    private final ChangeNotifier<Observer<S>> snapshotNotifier = new ChangeNotifier<Observer<S>>() {
+        // Only accessed by the notifying thread.
+        private Entry<S, C> capturedEntry;
+
+        @Override
+        boolean captureValue() {
+            final Entry<S, C> prevEntry = capturedEntry;
+            capturedEntry = latestEntry;
+            return capturedEntry != prevEntry;
+        }
+
+        @Override
+        void send(final Observer<S> observer) {
+            observer.sendNext(capturedEntry.changeSet.getSnapshot());
+        }
+    };
+
+    private final ChangeNotifier<ChangeSubscriber<S, C>> changeNotifier =
+            new ChangeNotifier<ChangeSubscriber<S, C>>() {
+                // Only accessed by the notifying thread.
+                private Entry<S, C> capturedEntry;
+
+                @Override
+                boolean captureValue() {
+                    final Entry<S, C> prevEntry = capturedEntry;
+                    capturedEntry = latestEntry;
+                    return capturedEntry != prevEntry;
+                }
+
+                @Override
+                void send(final ChangeSubscriber<S, C> subscriber) {
+                    final Entry<S, C> lastEntry = capturedEntry;
+                    if (subscriber.sentEntry == null) {
+                        subscriber.sentEntry = lastEntry;
+                        subscriber.observer.sendNext(new ChangeSet<>(lastEntry.changeSet.getSnapshot(),
+                                Collections.<C>emptyList()));
+                        return;
+                    }
+
+                    // Every entry up to the captured one has been linked, since it was captured after being appended.
+                    while (subscriber.sentEntry != lastEntry) {
+                        final Entry<S, C> entry = subscriber.sentEntry.next;
+                        subscriber.sentEntry = entry;
+                        try {
+                            subscriber.observer.sendNext(entry.changeSet);
+                        } catch (Throwable t) {
+                            final Thread thread = Thread.currentThread();
+                            thread.getUncaughtExceptionHandler().uncaughtException(thread, t);
+                        }
+                    }
+                }
+            };
+
+    ChangeLog(final S initialSnapshot) {
+        this.latestEntry = new Entry<>(new ChangeSet<>(initialSnapshot, Collections.<C>emptyList()), 0);
+    }
+
+    /**
+     * @return the snapshot after the latest change set
+     */
+    S getSnapshot() {
+        return latestEntry.changeSet.getSnapshot();
+    }
+
+    /**
+     * @return the number of change sets appended
+     */
+    long getVersion() {
+        return latestEntry.version;
+    }
+
+    /**
+     * Appends a change set, without notifying observers. Must hold {@link #editLock}.
+     */
+    void append(final S snapshot, final List<C> changes) {
+        final Entry<S, C> prevEntry = latestEntry;
+        final Entry<S, C> entry = new Entry<>(new ChangeSet<>(snapshot, changes), prevEntry.version + 1);
+        prevEntry.next = entry;
+        latestEntry = entry;
+    }
+
+    /**
+     * Sends the latest snapshot to observers of snapshots, and every change set not yet sent to observers of changes.
+     */
+    void notifyObservers() {
+        changeNotifier.notifyObservers();
+        snapshotNotifier.notifyObservers();
+    }
+
+    /**
+     * @return a producer for signals that send the current snapshot, followed by the snapshot after each change
+     */
+    SignalProducer<S> getSnapshotProducer() {
+        return new SignalProducer<>(new Action2<Observer<S>, CompositeDisposable>() {
+            @Override
+            public void call(final Observer<S> observer, final CompositeDisposable disposable) {
+                disposable.add(snapshotNotifier.subscribe(observer));
+                snapshotNotifier.notifyObservers();
+            }
+        });
+    }
+
+    /**
+     * @return a producer for signals that send a change set with no changes and the current snapshot, followed by
+     * every change set after that
+     */
+    SignalProducer<ChangeSet<S, C>> getChangeProducer() {
+        return new SignalProducer<>(new Action2<Observer<ChangeSet<S, C>>, CompositeDisposable>() {
+            @Override
+            public void call(final Observer<ChangeSet<S, C>> observer, final CompositeDisposable disposable) {
+                disposable.add(changeNotifier.subscribe(new ChangeSubscriber<>(observer)));
+                changeNotifier.notifyObservers();
+            }
+        });
+    }
+}
@@ -0,0 +1,164 @@
+package reactivejava.properties;
+
+import reactivejava.disposables.Disposable;
+
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+
+/**
+ * Sends the latest value of a property to its observers, of type {@code O}.
+ *
+ * Observers are kept in a copy-on-write array. Notifications are delivered by one thread at a time, so observers never
+ * receive values concurrently or out of order. If the property changes while observers are being notified, those
+ * changes are coalesced, so that observers may skip intermediate values but always receive the latest one.
+ */
+abstract class ChangeNotifier<O> {
+    private static final class Subscription<O> implements Disposable {
+        private final ChangeNotifier<O> notifier;
+        private final O observer;
+        private volatile boolean disposed;
+
+        // Only accessed by the notifying thread.
+        private boolean started;
+
+        private Subscription(final ChangeNotifier<O> notifier, final O observer) {
+            this.notifier = notifier;
+            this.observer = observer;
+        }
+
+        @Override
+        public boolean isDisposed() {
+            return disposed;
+        }
+
+        @Override
+        public void dispose() {
+            if (!disposed) {
+                disposed = true;
+                notifier.removeSubscription(this);
+            }
+        }
+    }
+
+    // Field updaters can only be created from raw class literals, so they are cast to wildcard types once here.
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    private static final AtomicReferenceFieldUpdater<ChangeNotifier<?>, Subscription<?>[]> SUBSCRIPTIONS =
+            (AtomicReferenceFieldUpdater) AtomicReferenceFieldUpdater.newUpdater(
+                    ChangeNotifier.class, Subscription[].class, "subscriptions");
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    private static final AtomicIntegerFieldUpdater<ChangeNotifier<?>> NOTIFY_COUNT =
+            (AtomicIntegerFieldUpdater) AtomicIntegerFieldUpdater.newUpdater(ChangeNotifier.class, "notifyCount");
+
+    private static final Subscription<?>[] NO_SUBSCRIPTIONS = new Subscription<?>[0];
+
+    private volatile Subscription<O>[] subscriptions = newSubscriptions(0);
+    // The number of requests to notify, which is non-zero while some thread is notifying.
+    private volatile int notifyCount;
+
+    /**
+     * Captures the current value of the property, to be sent by {@link #send(Object)}. Only called by the notifying
+     * thread.
+     *
+     * @return whether the captured value is a change from the one captured before
+     */
+    abstract boolean captureValue();
+
+    /**
+     * Sends the captured value to the given observer. Only called by the notifying thread.
+     */
+    abstract void send(O observer);
+
+    /**
+     * Adds the given observer, which is sent the current value upon the next call to {@link #notifyObservers()}, and
+     * every change after that.
+     *
+     * @return a disposable that removes the observer
+     */
+    final Disposable subscribe(final O observer) {
+        final Subscription<O> subscription = new Subscription<>(this, observer);
+        while (true) {
+            final Subscription<O>[] prevSubscriptions = subscriptions;
+            final int count = prevSubscriptions.length;
+
+            final Subscription<O>[] newSubscriptions = newSubscriptions(count + 1);
+            System.arraycopy(prevSubscriptions, 0, newSubscriptions, 0, count);
+            newSubscriptions[count] = subscription;
+            if (SUBSCRIPTIONS.compareAndSet(this, prevSubscriptions, newSubscriptions)) {
+                return subscription;
+            }
+        }
+    }
+
+    // Generic arrays can only be created with wildcards, but each array only holds subscriptions of one notifier.
+    @SuppressWarnings("unchecked")
+    private static <O> Subscription<O>[] newSubscriptions(final int length) {
+        return (Subscription<O>[]) ((length == 0) ? NO_SUBSCRIPTIONS : new Subscription<?>[length]);
+    }
+
+    private void removeSubscription(final Subscription<O> subscription) {
+        while (true) {
+            final Subscription<O>[] prevSubscriptions = subscriptions;
+            final int count = prevSubscriptions.length;
+
+            int index = 0;
+            while ((index < count) && (prevSubscriptions[index] != subscription)) {
+                ++index;
+            }
+            if (index == count) {
+                return;
+            }
+
+            final Subscription<O>[] newSubscriptions = newSubscriptions(count - 1);
+            if (count > 1) {
+                System.arraycopy(prevSubscriptions, 0, newSubscriptions, 0, index);
+                System.arraycopy(prevSubscriptions, index + 1, newSubscriptions, index, count - index - 1);
+            }
+            if (SUBSCRIPTIONS.compareAndSet(this, prevSubscriptions, newSubscriptions)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * @return whether any observers are subscribed
+     */
+    final boolean hasObservers() {
+        return subscriptions.length != 0;
+    }
+
+    /**
+     * Notifies observers of the latest value, unless another thread is already notifying, in which case that thread
+     * does so after its current pass. Observers that change the property from within a notification are handled the
+     * same way, rather than recursively.
+     */
+    final void notifyObservers() {
+        // A concurrently added observer is sent the current value by the call that follows its subscription.
+        if ((subscriptions.length == 0) || (NOTIFY_COUNT.getAndIncrement(this) != 0)) {
+            return;
+        }
+
+        int missedCount = 1;
+        do {
+            final boolean changed = captureValue();
+            for (final Subscription<O> subscription : subscriptions) {
+                if (subscription.disposed) {
+                    continue;
+                }
+                if (!subscription.started) {
+                    subscription.started = true;
+                } else if (!changed) {
+                    continue;
+                }
+
+                try {
+                    send(subscription.observer);
+                } catch (Throwable t) {
+                    final Thread thread = Thread.currentThread();
+                    thread.getUncaughtExceptionHandler().uncaughtException(thread, t);
+                }
+            }
+
+            missedCount = NOTIFY_COUNT.addAndGet(this, -missedCount);
+        } while (missedCount != 0);
+    }
+}
@@ -0,0 +1,43 @@
+package reactivejava.properties;
+
+import com.google.common.base.MoreObjects;
+
+import java.util.List;
+
+/**
+ * The changes made to a collection property by one edit, along with a snapshot of the collection after them.
+ *
+ * @param <S> the type of the snapshot, such as {@code List<E>}
+ * @param <C> the type of each change, such as {@link ListChange}
+ */
+public final class ChangeSet<S, C> {
+    private final S snapshot;
+    private final List<C> changes;
+
+    ChangeSet(final S snapshot, final List<C> changes) {
+        this.snapshot = snapshot;
+        this.changes = changes;
+    }
+
+    /**
+     * @return an immutable snapshot of the collection after the changes
+     */
+    public S getSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * @return the changes, in the order in which they were made, or an empty list if this change set only carries the
+     * initial snapshot sent to a new observer
+     */
+    public List<C> getChanges() {
+        return changes;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("changes", changes)
+                .toString();
+    }
+}
@@ -0,0 +1,101 @@
+package reactivejava.properties;
+
+import reactivejava.Observer;
+import reactivejava.disposables.Disposable;
+import reactivejava.events.Event;
+import reactivejava.schedulers.Scheduler;
+import rx.functions.Action0;
+import rx.functions.Action1;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Delivers the values of a property to an observer on a scheduler, replacing any value not yet delivered with the
+ * next one, so that at most one delivery is ever scheduled.
+ */
+final class CoalescingObserver<V> implements Disposable {
+    // Marks that no value is pending, since null is a valid value.
+    private static final Object NONE = new Object();
+
+    private final Observer<V> observer;
+    private final Scheduler scheduler;
+
+    private final AtomicReference<Object> pendingValue = new AtomicReference<>(NONE);
+    // Whether a delivery is scheduled or running, so that deliveries neither overlap nor reorder.
+    private final AtomicBoolean deliveryScheduled = new AtomicBoolean();
+    private volatile boolean disposed;
+
+    private final Action0 deliver = new Action0() {
+        @Override
+        public void call() {
+            deliver();
+        }
+    };
+
+    CoalescingObserver(final Observer<V> observer, final Scheduler scheduler) {
+        this.observer = observer;
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * @return an observer of the property that passes each value to this
+     */
+    Observer<V> getSourceObserver() {
+        return new Observer<>(new Action1<Event<V>>() {
+            @Override
+            public void call(final Event<V> event) {
+                if (event.getType() == Event.Type.NEXT) {
+                    onValue(event.getValue());
+                }
+            }
+        });
+    }
+
+    private void onValue(final V value) {
+        pendingValue.set(value);
+        scheduleDelivery();
+    }
+
+    /**
+     * Schedules a delivery if none is scheduled. If the scheduler throws, the value stays pending and the exception is
+     * rethrown, and the next value tries to schedule the delivery again.
+     */
+    private void scheduleDelivery() {
+        if (!disposed && deliveryScheduled.compareAndSet(false, true)) {
+            try {
+                scheduler.schedule(deliver);
+            } catch (RuntimeException e) {
+                deliveryScheduled.set(false);
+                throw e;
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void deliver() {
+        final Object value = pendingValue.getAndSet(NONE);
+        try {
+            if ((value != NONE) && !disposed) {
+                observer.sendNext((V) value);
+            }
+        } finally {
+            deliveryScheduled.set(false);
+            // A value set after the swap above found deliveryScheduled still set, so schedule its delivery here.
+            if (pendingValue.get() != NONE) {
+                scheduleDelivery();
+            }
+        }
+    }
+
+    @Override
+    public boolean isDisposed() {
+        return disposed;
+    }
+
+    @Override
+    public void dispose() {
+        disposed = true;
+        pendingValue.set(NONE);
+    }
+}
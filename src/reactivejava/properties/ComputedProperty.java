@@ -0,0 +1,263 @@
+package reactivejava.properties;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.base.Objects;
+import reactivejava.Observer;
+import reactivejava.SignalProducer;
+import reactivejava.disposables.CompositeDisposable;
+import rx.functions.Action0;
+import rx.functions.Action2;
+import rx.functions.Func0;
+import rx.functions.Func1;
+import rx.functions.Func2;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * A property whose value is computed from the values of other properties, which may themselves be computed.
+ *
+ * The value is recomputed lazily. While unobserved, it is recomputed only when read, and only if some dependency has
+ * changed since it was last computed. While observed, it is recomputed when a dependency changes, but only after all
+ * of its own dependencies have been, so that it is recomputed at most once per change and never from a mix of old and
+ * new values. A recomputed value that is equal to the previous one is not a change, and so stops propagation there.
+ *
+ * Dependencies must be properties of this package, such as {@link MutableProperty}, {@link IntProperty} or another
+ * {@link ComputedProperty}, and the function may only read those dependencies. A function that writes any property
+ * throws {@link IllegalStateException}.
+ */
+public final class ComputedProperty<V> extends PropertyNode implements Property<V> {
+    private final PropertyNode[] dependencies;
+    private final Func0<V> function;
+
+    // The remaining fields are only written while holding the graph lock.
+    private final long[] dependencyVersions;
+    private boolean valid;
+    private volatile Box<V> box;
+    // The number of observers and active dependents, while positive this is kept up to date by its dependencies.
+    private volatile int activeCount;
+    // Whether this is waiting to be recomputed by a propagating change.
+    boolean queued;
+
+    private final BoxNotifier<V> notifier = new BoxNotifier<V>(true) {
+        @Override
+        Box<V> getCurrentBox() {
+            return box;
+        }
+    };
+
+    /**
+     * Constructs a {@link ComputedProperty} whose value is the result of the given function, which reads the given
+     * dependencies.
+     */
+    public ComputedProperty(final List<? extends Property<?>> dependencies, final Func0<V> function) {
+        this(toNodes(dependencies), function);
+    }
+
+    private ComputedProperty(final PropertyNode[] dependencies, final Func0<V> function) {
+        super(getHeight(dependencies), PropertyGraph.merge(Arrays.asList(dependencies)));
+
+        this.dependencies = dependencies;
+        this.function = checkNotNull(function);
+        this.dependencyVersions = new long[dependencies.length];
+    }
+
+    private static PropertyNode[] toNodes(final List<? extends Property<?>> dependencies) {
+        final PropertyNode[] nodes = new PropertyNode[dependencies.size()];
+        for (int i = 0; i < nodes.length; ++i) {
+            final Property<?> dependency = dependencies.get(i);
+            checkArgument(dependency instanceof PropertyNode, "Unsupported dependency: %s", dependency);
+            nodes[i] = (PropertyNode) dependency;
+        }
+        return nodes;
+    }
+
+    private static int getHeight(final PropertyNode[] dependencies) {
+        int maxHeight = 0;
+        for (final PropertyNode dependency : dependencies) {
+            maxHeight = Math.max(maxHeight, dependency.height);
+        }
+        return maxHeight + 1;
+    }
+
+    /**
+     * @return a property whose value is the result of applying the given function to the value of the given property
+     */
+    public static <A, V> ComputedProperty<V> map(final Property<A> property,
+                                                 final Func1<? super A, ? extends V> function) {
+        checkNotNull(function);
+        return new ComputedProperty<>(Arrays.asList(property), new Func0<V>() {
+            @Override
+            public V call() {
+                return function.call(property.getValue());
+            }
+        });
+    }
+
+    /**
+     * @return a property whose value is the result of applying the given function to the values of the given
+     * properties
+     */
+    public static <A, B, V> ComputedProperty<V> combine(final Property<A> property1,
+                                                        final Property<B> property2,
+                                                        final Func2<? super A, ? super B, ? extends V> function) {
+        checkNotNull(function);
+        return new ComputedProperty<>(Arrays.asList(property1, property2), new Func0<V>() {
+            @Override
+            public V call() {
+                return function.call(property1.getValue(), property2.getValue());
+            }
+        });
+    }
+
+    @Override
+    public V getValue() {
+        if (activeCount > 0) {
+            return box.value;
+        }
+
+        final PropertyGraph graph = getGraph().lock();
+        try {
+            refresh();
+            return box.value;
+        } finally {
+            graph.unlock();
+        }
+    }
+
+    /**
+     * @return a producer for signals that send the property's current value, followed by all changes over time
+     */
+    @Override
+    public SignalProducer<V> getProducer() {
+        return new SignalProducer<>(new Action2<Observer<V>, CompositeDisposable>() {
+            @Override
+            public void call(final Observer<V> observer, final CompositeDisposable disposable) {
+                final PropertyGraph graph = getGraph().lock();
+                try {
+                    activate();
+                } finally {
+                    graph.unlock();
+                }
+
+                disposable.add(notifier.subscribe(observer));
+                disposable.add(new Action0() {
+                    @Override
+                    public void call() {
+                        final PropertyGraph graph = getGraph().lock();
+                        try {
+                            deactivate();
+                        } finally {
+                            graph.unlock();
+                        }
+                    }
+                });
+                notifier.notifyObservers();
+            }
+        });
+    }
+
+    @Override
+    long getVersion() {
+        final Box<V> box = this.box;
+        return (box != null) ? box.version : -1;
+    }
+
+    @Override
+    void refresh() {
+        if (activeCount > 0) {
+            return;
+        }
+
+        boolean stale = !valid;
+        for (int i = 0; i < dependencies.length; ++i) {
+            final PropertyNode dependency = dependencies[i];
+            dependency.refresh();
+            if (dependency.getVersion() != dependencyVersions[i]) {
+                stale = true;
+            }
+        }
+        if (stale) {
+            recompute();
+        }
+    }
+
+    /**
+     * Recomputes the value from the current values of the dependencies. Must hold the lock of its graph.
+     *
+     * @return whether the value changed
+     */
+    boolean recompute() {
+        valid = false;
+        // Record the versions before reading the values, so that a concurrent change is seen as a change next time.
+        for (int i = 0; i < dependencies.length; ++i) {
+            dependencyVersions[i] = dependencies[i].getVersion();
+        }
+        final V value = compute(this);
+        valid = true;
+
+        final Box<V> prevBox = box;
+        if ((prevBox != null) && Objects.equal(prevBox.value, value)) {
+            return false;
+        }
+        box = new Box<>(value, (prevBox != null) ? (prevBox.version + 1) : 0);
+        return true;
+    }
+
+    /**
+     * Calls the function, which must only be done through {@link #compute(ComputedProperty)}.
+     */
+    V callFunction() {
+        return function.call();
+    }
+
+    @Override
+    void activate() {
+        if (activeCount == 0) {
+            int activatedCount = 0;
+            try {
+                for (final PropertyNode dependency : dependencies) {
+                    dependency.activate();
+                    dependency.addDependent(this);
+                    ++activatedCount;
+                }
+                // Registering as a dependent before reading versions ensures that no change is missed.
+                refresh();
+            } catch (Throwable t) {
+                for (int i = 0; i < activatedCount; ++i) {
+                    dependencies[i].removeDependent(this);
+                    dependencies[i].deactivate();
+                }
+                throw t;
+            }
+        }
+        activeCount++;
+    }
+
+    @Override
+    void deactivate() {
+        if (--activeCount == 0) {
+            for (final PropertyNode dependency : dependencies) {
+                dependency.removeDependent(this);
+                dependency.deactivate();
+            }
+        }
+    }
+
+    @Override
+    void notifyObservers() {
+        notifier.notifyObservers();
+    }
+
+    @Override
+    public String toString() {
+        final Box<V> box = this.box;
+        return MoreObjects.toStringHelper(this)
+                .add("value", (box != null) ? box.value : null)
+                .add("height", height)
+                .toString();
+    }
+}
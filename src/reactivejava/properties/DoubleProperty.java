@@ -0,0 +1,173 @@
+package reactivejava.properties;
+
+import com.google.common.base.MoreObjects;
+import reactivejava.Observer;
+import reactivejava.SignalProducer;
+import reactivejava.disposables.CompositeDisposable;
+import reactivejava.disposables.Disposable;
+import rx.functions.Action2;
+
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * A mutable property holding a {@code double}, which is read and written without boxing.
+ *
+ * Writes that change the value notify observers in the same way as {@link MutableProperty}. Values are compared by
+ * their raw bits, so writing a value with the same bits as the current one is not a change, and
+ * {@link #compareAndSet(double, double)} succeeds only if the bits match.
+ */
+public final class DoubleProperty extends PropertyNode implements Property<Double> {
+    /**
+     * Receives the values of a {@link DoubleProperty}.
+     */
+    public interface ChangeObserver {
+        void onChange(double value);
+    }
+
+    private static final AtomicLongFieldUpdater<DoubleProperty> BITS =
+            AtomicLongFieldUpdater.newUpdater(DoubleProperty.class, "bits");
+
+    private volatile long bits;
+
+    private final ChangeNotifier<ChangeObserver> notifier = new ChangeNotifier<ChangeObserver>() {
+        // Only accessed by the notifying thread.
+        private long capturedBits;
+
+        @Override
+        boolean captureValue() {
+            final long prevBits = capturedBits;
+            capturedBits = bits;
+            return capturedBits != prevBits;
+        }
+
+        @Override
+        void send(final ChangeObserver observer) {
+            observer.onChange(Double.longBitsToDouble(capturedBits));
+        }
+    };
+
+    public DoubleProperty(final double initialValue) {
+        super(0);
+        this.bits = Double.doubleToRawLongBits(initialValue);
+    }
+
+    /**
+     * @return the current value
+     */
+    public double get() {
+        return Double.longBitsToDouble(bits);
+    }
+
+    /**
+     * Sets the value, and notifies observers if it changed.
+     */
+    public void set(final double newValue) {
+        checkNotComputing();
+        final long newBits = Double.doubleToRawLongBits(newValue);
+        if (BITS.getAndSet(this, newBits) != newBits) {
+            onChanged();
+        }
+    }
+
+    /**
+     * Atomically adds the given delta to the value, and notifies observers if it changed.
+     *
+     * @return the previous value
+     */
+    public double getAndAdd(final double delta) {
+        checkNotComputing();
+        while (true) {
+            final long prevBits = bits;
+            final double prevValue = Double.longBitsToDouble(prevBits);
+            final long newBits = Double.doubleToRawLongBits(prevValue + delta);
+            if (BITS.compareAndSet(this, prevBits, newBits)) {
+                if (newBits != prevBits) {
+                    onChanged();
+                }
+                return prevValue;
+            }
+        }
+    }
+
+    /**
+     * Atomically adds the given delta to the value, and notifies observers if it changed.
+     *
+     * @return the updated value
+     */
+    public double addAndGet(final double delta) {
+        return getAndAdd(delta) + delta;
+    }
+
+    /**
+     * Atomically sets the value to {@code newValue} if its bits equal those of {@code expectedValue}, and notifies
+     * observers if it changed.
+     *
+     * @return whether the value equaled {@code expectedValue}
+     */
+    public boolean compareAndSet(final double expectedValue, final double newValue) {
+        checkNotComputing();
+        final long expectedBits = Double.doubleToRawLongBits(expectedValue);
+        final long newBits = Double.doubleToRawLongBits(newValue);
+        if (!BITS.compareAndSet(this, expectedBits, newBits)) {
+            return false;
+        }
+        if (expectedBits != newBits) {
+            onChanged();
+        }
+        return true;
+    }
+
+    /**
+     * Sends the current value to the given observer, followed by all changes over time.
+     *
+     * @return a disposable that stops sending values to the observer
+     */
+    public Disposable observeChanges(final ChangeObserver observer) {
+        final Disposable subscription = notifier.subscribe(checkNotNull(observer));
+        // The notifying thread sends the current value to the new observer before any later changes.
+        notifier.notifyObservers();
+        return subscription;
+    }
+
+    @Override
+    public Double getValue() {
+        return get();
+    }
+
+    /**
+     * @return a producer for signals that send the property's current value, followed by all changes over time
+     */
+    @Override
+    public SignalProducer<Double> getProducer() {
+        return new SignalProducer<>(new Action2<Observer<Double>, CompositeDisposable>() {
+            @Override
+            public void call(final Observer<Double> observer, final CompositeDisposable disposable) {
+                disposable.add(observeChanges(new ChangeObserver() {
+                    @Override
+                    public void onChange(final double value) {
+                        observer.sendNext(value);
+                    }
+                }));
+            }
+        });
+    }
+
+    @Override
+    long getVersion() {
+        return bits;
+    }
+
+    @Override
+    void notifyObservers() {
+        notifier.notifyObservers();
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("value", get())
+                .toString();
+    }
+}
@@ -0,0 +1,163 @@
+package reactivejava.properties;
+
+import com.google.common.base.MoreObjects;
+import reactivejava.Observer;
+import reactivejava.SignalProducer;
+import reactivejava.disposables.CompositeDisposable;
+import reactivejava.disposables.Disposable;
+import rx.functions.Action2;
+
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * A mutable property holding an {@code int}, which is read and written without boxing.
+ *
+ * Writes that change the value notify observers in the same way as {@link MutableProperty}. Writing a value equal to
+ * the current one is not a change.
+ */
+public final class IntProperty extends PropertyNode implements Property<Integer> {
+    /**
+     * Receives the values of an {@link IntProperty}.
+     */
+    public interface ChangeObserver {
+        void onChange(int value);
+    }
+
+    private static final AtomicIntegerFieldUpdater<IntProperty> VALUE =
+            AtomicIntegerFieldUpdater.newUpdater(IntProperty.class, "value");
+
+    private volatile int value;
+
+    private final ChangeNotifier<ChangeObserver> notifier = new ChangeNotifier<ChangeObserver>() {
+        // Only accessed by the notifying thread.
+        private int capturedValue;
+
+        @Override
+        boolean captureValue() {
+            final int prevValue = capturedValue;
+            capturedValue = value;
+            return capturedValue != prevValue;
+        }
+
+        @Override
+        void send(final ChangeObserver observer) {
+            observer.onChange(capturedValue);
+        }
+    };
+
+    public IntProperty(final int initialValue) {
+        super(0);
+        this.value = initialValue;
+    }
+
+    /**
+     * @return the current value
+     */
+    public int get() {
+        return value;
+    }
+
+    /**
+     * Sets the value, and notifies observers if it changed.
+     */
+    public void set(final int newValue) {
+        checkNotComputing();
+        if (VALUE.getAndSet(this, newValue) != newValue) {
+            onChanged();
+        }
+    }
+
+    /**
+     * Atomically adds the given delta to the value, and notifies observers if it changed.
+     *
+     * @return the previous value
+     */
+    public int getAndAdd(final int delta) {
+        checkNotComputing();
+        final int prevValue = VALUE.getAndAdd(this, delta);
+        if (delta != 0) {
+            onChanged();
+        }
+        return prevValue;
+    }
+
+    /**
+     * Atomically adds the given delta to the value, and notifies observers if it changed.
+     *
+     * @return the updated value
+     */
+    public int addAndGet(final int delta) {
+        return getAndAdd(delta) + delta;
+    }
+
+    /**
+     * Atomically sets the value to {@code newValue} if it equals {@code expectedValue}, and notifies observers if it
+     * changed.
+     *
+     * @return whether the value equaled {@code expectedValue}
+     */
+    public boolean compareAndSet(final int expectedValue, final int newValue) {
+        checkNotComputing();
+        if (!VALUE.compareAndSet(this, expectedValue, newValue)) {
+            return false;
+        }
+        if (expectedValue != newValue) {
+            onChanged();
+        }
+        return true;
+    }
+
+    /**
+     * Sends the current value to the given observer, followed by all changes over time.
+     *
+     * @return a disposable that stops sending values to the observer
+     */
+    public Disposable observeChanges(final ChangeObserver observer) {
+        final Disposable subscription = notifier.subscribe(checkNotNull(observer));
+        // The notifying thread sends the current value to the new observer before any later changes.
+        notifier.notifyObservers();
+        return subscription;
+    }
+
+    @Override
+    public Integer getValue() {
+        return value;
+    }
+
+    /**
+     * @return a producer for signals that send the property's current value, followed by all changes over time
+     */
+    @Override
+    public SignalProducer<Integer> getProducer() {
+        return new SignalProducer<>(new Action2<Observer<Integer>, CompositeDisposable>() {
+            @Override
+            public void call(final Observer<Integer> observer, final CompositeDisposable disposable) {
+                disposable.add(observeChanges(new ChangeObserver() {
+                    @Override
+                    public void onChange(final int value) {
+                        observer.sendNext(value);
+                    }
+                }));
+            }
+        });
+    }
+
+    @Override
+    long getVersion() {
+        return value;
+    }
+
+    @Override
+    void notifyObservers() {
+        notifier.notifyObservers();
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("value", value)
+                .toString();
+    }
+}
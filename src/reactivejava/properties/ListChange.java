@@ -0,0 +1,83 @@
+package reactivejava.properties;
+
+import com.google.common.base.MoreObjects;
+
+/**
+ * One change made to a {@link ListProperty}.
+ *
+ * Each index refers to the list as it was after all earlier changes in the same {@link ChangeSet}, so that applying
+ * the changes in order to the previous snapshot yields the next one.
+ */
+public final class ListChange<E> {
+    public enum Type {
+        /**
+         * The element was inserted at the index.
+         */
+        INSERT,
+
+        /**
+         * The element was removed from the index.
+         */
+        REMOVE,
+
+        /**
+         * The element at the index was replaced, and the old element is given.
+         */
+        UPDATE,
+
+        /**
+         * The element was removed from the from-index, and then inserted at the index.
+         */
+        MOVE
+    }
+
+    public final Type type;
+    public final int index;
+    /**
+     * The index from which the element was moved if the type is {@link Type#MOVE}, or else {@code -1}.
+     */
+    public final int fromIndex;
+    /**
+     * The inserted, removed, replacing or moved element.
+     */
+    public final E element;
+    /**
+     * The replaced element if the type is {@link Type#UPDATE}, or else {@code null}.
+     */
+    public final E oldElement;
+
+    private ListChange(final Type type, final int index, final int fromIndex, final E element, final E oldElement) {
+        this.type = type;
+        this.index = index;
+        this.fromIndex = fromIndex;
+        this.element = element;
+        this.oldElement = oldElement;
+    }
+
+    static <E> ListChange<E> forInsert(final int index, final E element) {
+        return new ListChange<>(Type.INSERT, index, -1, element, null);
+    }
+
+    static <E> ListChange<E> forRemove(final int index, final E element) {
+        return new ListChange<>(Type.REMOVE, index, -1, element, null);
+    }
+
+    static <E> ListChange<E> forUpdate(final int index, final E oldElement, final E element) {
+        return new ListChange<>(Type.UPDATE, index, -1, element, oldElement);
+    }
+
+    static <E> ListChange<E> forMove(final int fromIndex, final int index, final E element) {
+        return new ListChange<>(Type.MOVE, index, fromIndex, element, null);
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("type", type)
+                .add("index", index)
+                .add("fromIndex", fromIndex)
+                .add("element", element)
+                .add("oldElement", oldElement)
+                .toString();
+    }
+}
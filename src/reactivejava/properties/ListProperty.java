@@ -0,0 +1,279 @@
+package reactivejava.properties;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.base.Objects;
+import reactivejava.SignalProducer;
+import rx.functions.Action1;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+
+/**
+ * A property holding a list, which sends observers of changes the insertions, removals, updates and moves made to it,
+ * instead of the whole list.
+ *
+ * The list is held in a persistent structure, so that {@link #snapshot()} takes O(1) time, and each change takes
+ * O(log n) time and allocates O(log n) nodes, however large the list. Edits are serialized, and each call to
+ * {@link #edit(Action1)} produces one {@link ChangeSet}.
+ */
+public final class ListProperty<E> extends PropertyNode implements Property<List<E>> {
+    /**
+     * Makes the changes of one call to {@link #edit(Action1)}, and may only be used during that call.
+     */
+    public static final class Editor<E> {
+        private PersistentList<E> list;
+        private final List<ListChange<E>> changes = new ArrayList<>();
+        private boolean closed;
+
+        private Editor(final PersistentList<E> list) {
+            this.list = list;
+        }
+
+        private void checkOpen() {
+            checkState(!closed, "Editor used after its edit returned");
+        }
+
+        /**
+         * @return the size of the list, including the changes made so far
+         */
+        public int size() {
+            return list.size();
+        }
+
+        /**
+         * @return the element at the given index, including the changes made so far
+         */
+        public E get(final int index) {
+            return list.get(index);
+        }
+
+        /**
+         * Appends the given element.
+         */
+        public void add(final E element) {
+            add(list.size(), element);
+        }
+
+        /**
+         * Inserts the given element at the given index.
+         */
+        public void add(final int index, final E element) {
+            checkOpen();
+            list = list.plus(index, element);
+            changes.add(ListChange.forInsert(index, element));
+        }
+
+        /**
+         * Appends the given elements.
+         */
+        public void addAll(final Iterable<? extends E> elements) {
+            for (final E element : elements) {
+                add(list.size(), element);
+            }
+        }
+
+        /**
+         * Replaces the element at the given index, which is not a change if the elements are equal.
+         *
+         * @return the replaced element
+         */
+        public E set(final int index, final E element) {
+            checkOpen();
+            final E oldElement = list.get(index);
+            if (!Objects.equal(oldElement, element)) {
+                list = list.with(index, element);
+                changes.add(ListChange.forUpdate(index, oldElement, element));
+            }
+            return oldElement;
+        }
+
+        /**
+         * Removes the element at the given index.
+         *
+         * @return the removed element
+         */
+        public E remove(final int index) {
+            checkOpen();
+            final E element = list.get(index);
+            list = list.minus(index);
+            changes.add(ListChange.forRemove(index, element));
+            return element;
+        }
+
+        /**
+         * Moves the element at the given from-index, so that it is then at the given to-index.
+         */
+        public void move(final int fromIndex, final int toIndex) {
+            checkOpen();
+            final E element = list.get(fromIndex);
+            if (fromIndex != toIndex) {
+                list = list.minus(fromIndex).plus(toIndex, element);
+                changes.add(ListChange.forMove(fromIndex, toIndex, element));
+            }
+        }
+
+        /**
+         * Removes every element, last to first.
+         */
+        public void clear() {
+            for (int i = list.size() - 1; i >= 0; --i) {
+                remove(i);
+            }
+        }
+    }
+
+    private final ChangeLog<List<E>, ListChange<E>> log;
+
+    /**
+     * Constructs an empty {@link ListProperty}.
+     */
+    public ListProperty() {
+        this(Collections.<E>emptyList());
+    }
+
+    /**
+     * Constructs a {@link ListProperty} containing the given elements.
+     */
+    public ListProperty(final Iterable<? extends E> elements) {
+        super(0);
+        this.log = new ChangeLog<List<E>, ListChange<E>>(PersistentList.copyOf(elements));
+    }
+
+    /**
+     * @return an immutable snapshot of the list, taken in O(1) time
+     */
+    public List<E> snapshot() {
+        return log.getSnapshot();
+    }
+
+    /**
+     * Passes an {@link Editor} to the given action, and then applies all of its changes together as one
+     * {@link ChangeSet}, and notifies observers. If the action throws, none of its changes are applied.
+     *
+     * Edits of this property are serialized, and may not be nested.
+     */
+    public void edit(final Action1<? super Editor<E>> action) {
+        checkNotNull(action);
+        checkState(!log.editLock.isHeldByCurrentThread(), "Edits may not be nested");
+        checkNotComputing();
+
+        log.editLock.lock();
+        try {
+            final Editor<E> editor = new Editor<>((PersistentList<E>) log.getSnapshot());
+            try {
+                action.call(editor);
+            } finally {
+                editor.closed = true;
+            }
+            if (editor.changes.isEmpty()) {
+                return;
+            }
+            log.append(editor.list, Collections.unmodifiableList(editor.changes));
+        } finally {
+            log.editLock.unlock();
+        }
+        onChanged();
+    }
+
+    /**
+     * Appends the given element.
+     */
+    public void add(final E element) {
+        edit(new Action1<Editor<E>>() {
+            @Override
+            public void call(final Editor<E> editor) {
+                editor.add(element);
+            }
+        });
+    }
+
+    /**
+     * Inserts the given element at the given index.
+     */
+    public void add(final int index, final E element) {
+        edit(new Action1<Editor<E>>() {
+            @Override
+            public void call(final Editor<E> editor) {
+                editor.add(index, element);
+            }
+        });
+    }
+
+    /**
+     * Replaces the element at the given index, which is not a change if the elements are equal.
+     */
+    public void set(final int index, final E element) {
+        edit(new Action1<Editor<E>>() {
+            @Override
+            public void call(final Editor<E> editor) {
+                editor.set(index, element);
+            }
+        });
+    }
+
+    /**
+     * Removes the element at the given index.
+     */
+    public void remove(final int index) {
+        edit(new Action1<Editor<E>>() {
+            @Override
+            public void call(final Editor<E> editor) {
+                editor.remove(index);
+            }
+        });
+    }
+
+    /**
+     * Moves the element at the given from-index, so that it is then at the given to-index.
+     */
+    public void move(final int fromIndex, final int toIndex) {
+        edit(new Action1<Editor<E>>() {
+            @Override
+            public void call(final Editor<E> editor) {
+                editor.move(fromIndex, toIndex);
+            }
+        });
+    }
+
+    @Override
+    public List<E> getValue() {
+        return snapshot();
+    }
+
+    /**
+     * @return a producer for signals that send a snapshot of the list, followed by a snapshot after changes over time
+     */
+    @Override
+    public SignalProducer<List<E>> getProducer() {
+        return log.getSnapshotProducer();
+    }
+
+    /**
+     * @return a producer for signals that send a {@link ChangeSet} with no changes and a snapshot of the list,
+     * followed by the {@link ChangeSet} of every later edit, in order
+     */
+    public SignalProducer<ChangeSet<List<E>, ListChange<E>>> getChangeProducer() {
+        return log.getChangeProducer();
+    }
+
+    @Override
+    long getVersion() {
+        return log.getVersion();
+    }
+
+    @Override
+    void notifyObservers() {
+        log.notifyObservers();
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("size", snapshot().size())
+                .toString();
+    }
+}
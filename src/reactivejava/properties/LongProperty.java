@@ -0,0 +1,224 @@
+package reactivejava.properties;
+
+import com.google.common.base.MoreObjects;
+import reactivejava.Observer;
+import reactivejava.SignalProducer;
+import reactivejava.disposables.CompositeDisposable;
+import reactivejava.disposables.Disposable;
+import rx.functions.Action2;
+
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.concurrent.atomic.LongAdder;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * A mutable property holding a {@code long}, which is read and written without boxing.
+ *
+ * Writes that change the value notify observers in the same way as {@link MutableProperty}. Writing a value equal to
+ * the current one is not a change.
+ *
+ * A striped property spreads its value over a {@link LongAdder}, so that concurrent calls to {@link #add(long)} rarely
+ * contend, at the cost of reads summing the stripes. A striped property supports only {@link #add(long)} as a write,
+ * and is best left unobserved, or observed through a scheduler, since each notification is serialized.
+ */
+public final class LongProperty extends PropertyNode implements Property<Long> {
+    /**
+     * Receives the values of a {@link LongProperty}.
+     */
+    public interface ChangeObserver {
+        void onChange(long value);
+    }
+
+    private static final AtomicLongFieldUpdater<LongProperty> VALUE =
+            AtomicLongFieldUpdater.newUpdater(LongProperty.class, "value");
+
+    // Holds the value if not striped.
+    private volatile long value;
+    // Holds the value if striped, or else is null.
+    private final LongAdder adder;
+
+    private final ChangeNotifier<ChangeObserver> notifier = new ChangeNotifier<ChangeObserver>() {
+        // Only accessed by the notifying thread.
+        private long capturedValue;
+
+        @Override
+        boolean captureValue() {
+            final long prevValue = capturedValue;
+            capturedValue = get();
+            return capturedValue != prevValue;
+        }
+
+        @Override
+        void send(final ChangeObserver observer) {
+            observer.onChange(capturedValue);
+        }
+    };
+
+    public LongProperty(final long initialValue) {
+        this(initialValue, false);
+    }
+
+    /**
+     * @param striped whether the value is spread over stripes, which makes concurrent additions cheap
+     */
+    public LongProperty(final long initialValue, final boolean striped) {
+        super(0);
+        if (striped) {
+            this.adder = new LongAdder();
+            this.adder.add(initialValue);
+        } else {
+            this.adder = null;
+            this.value = initialValue;
+        }
+    }
+
+    /**
+     * @return whether the value is spread over stripes
+     */
+    public boolean isStriped() {
+        return adder != null;
+    }
+
+    /**
+     * @return the current value, which for a striped property is the sum of its stripes
+     */
+    public long get() {
+        final LongAdder adder = this.adder;
+        return (adder != null) ? adder.sum() : value;
+    }
+
+    /**
+     * Sets the value, and notifies observers if it changed.
+     *
+     * @throws UnsupportedOperationException if this property is striped
+     */
+    public void set(final long newValue) {
+        checkNotComputing();
+        checkNotStriped();
+        if (VALUE.getAndSet(this, newValue) != newValue) {
+            onChanged();
+        }
+    }
+
+    /**
+     * Adds the given delta to the value, and notifies observers if it changed. Unlike the other writes, this is
+     * supported by a striped property.
+     */
+    public void add(final long delta) {
+        checkNotComputing();
+        final LongAdder adder = this.adder;
+        if (adder != null) {
+            adder.add(delta);
+        } else {
+            VALUE.getAndAdd(this, delta);
+        }
+        if (delta != 0) {
+            onChanged();
+        }
+    }
+
+    /**
+     * Atomically adds the given delta to the value, and notifies observers if it changed.
+     *
+     * @return the previous value
+     * @throws UnsupportedOperationException if this property is striped
+     */
+    public long getAndAdd(final long delta) {
+        checkNotComputing();
+        checkNotStriped();
+        final long prevValue = VALUE.getAndAdd(this, delta);
+        if (delta != 0) {
+            onChanged();
+        }
+        return prevValue;
+    }
+
+    /**
+     * Atomically adds the given delta to the value, and notifies observers if it changed.
+     *
+     * @return the updated value
+     * @throws UnsupportedOperationException if this property is striped
+     */
+    public long addAndGet(final long delta) {
+        return getAndAdd(delta) + delta;
+    }
+
+    /**
+     * Atomically sets the value to {@code newValue} if it equals {@code expectedValue}, and notifies observers if it
+     * changed.
+     *
+     * @return whether the value equaled {@code expectedValue}
+     * @throws UnsupportedOperationException if this property is striped
+     */
+    public boolean compareAndSet(final long expectedValue, final long newValue) {
+        checkNotComputing();
+        checkNotStriped();
+        if (!VALUE.compareAndSet(this, expectedValue, newValue)) {
+            return false;
+        }
+        if (expectedValue != newValue) {
+            onChanged();
+        }
+        return true;
+    }
+
+    private void checkNotStriped() {
+        if (adder != null) {
+            throw new UnsupportedOperationException("Only add(long) is supported by a striped property");
+        }
+    }
+
+    /**
+     * Sends the current value to the given observer, followed by all changes over time.
+     *
+     * @return a disposable that stops sending values to the observer
+     */
+    public Disposable observeChanges(final ChangeObserver observer) {
+        final Disposable subscription = notifier.subscribe(checkNotNull(observer));
+        // The notifying thread sends the current value to the new observer before any later changes.
+        notifier.notifyObservers();
+        return subscription;
+    }
+
+    @Override
+    public Long getValue() {
+        return get();
+    }
+
+    /**
+     * @return a producer for signals that send the property's current value, followed by all changes over time
+     */
+    @Override
+    public SignalProducer<Long> getProducer() {
+        return new SignalProducer<>(new Action2<Observer<Long>, CompositeDisposable>() {
+            @Override
+            public void call(final Observer<Long> observer, final CompositeDisposable disposable) {
+                disposable.add(observeChanges(new ChangeObserver() {
+                    @Override
+                    public void onChange(final long value) {
+                        observer.sendNext(value);
+                    }
+                }));
+            }
+        });
+    }
+
+    @Override
+    long getVersion() {
+        return get();
+    }
+
+    @Override
+    void notifyObservers() {
+        notifier.notifyObservers();
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("value", get())
+                .add("striped", isStriped())
+                .toString();
+    }
+}
@@ -0,0 +1,65 @@
+package reactivejava.properties;
+
+import com.google.common.base.MoreObjects;
+
+/**
+ * One change made to a {@link MapProperty}.
+ */
+public final class MapChange<K, V> {
+    public enum Type {
+        /**
+         * The key was absent, and is now mapped to the value.
+         */
+        INSERT,
+
+        /**
+         * The key was mapped to the value, and is now absent.
+         */
+        REMOVE,
+
+        /**
+         * The key was mapped to the old value, and is now mapped to the value.
+         */
+        UPDATE
+    }
+
+    public final Type type;
+    public final K key;
+    /**
+     * The inserted, removed or replacing value.
+     */
+    public final V value;
+    /**
+     * The replaced value if the type is {@link Type#UPDATE}, or else {@code null}.
+     */
+    public final V oldValue;
+
+    private MapChange(final Type type, final K key, final V value, final V oldValue) {
+        this.type = type;
+        this.key = key;
+        this.value = value;
+        this.oldValue = oldValue;
+    }
+
+    static <K, V> MapChange<K, V> forInsert(final K key, final V value) {
+        return new MapChange<>(Type.INSERT, key, value, null);
+    }
+
+    static <K, V> MapChange<K, V> forRemove(final K key, final V value) {
+        return new MapChange<>(Type.REMOVE, key, value, null);
+    }
+
+    static <K, V> MapChange<K, V> forUpdate(final K key, final V oldValue, final V value) {
+        return new MapChange<>(Type.UPDATE, key, value, oldValue);
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("type", type)
+                .add("key", key)
+                .add("value", value)
+                .add("oldValue", oldValue)
+                .toString();
+    }
+}
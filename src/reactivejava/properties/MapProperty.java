@@ -0,0 +1,229 @@
+package reactivejava.properties;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.base.Objects;
+import reactivejava.SignalProducer;
+import rx.functions.Action1;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+
+/**
+ * A property holding a map, which sends observers of changes the insertions, removals and updates made to it, instead
+ * of the whole map. Keys may not be {@code null}.
+ *
+ * The map is held in a persistent structure, so that {@link #snapshot()} takes O(1) time, and each change takes
+ * O(log n) time and allocates O(log n) nodes, however large the map. Edits are serialized, and each call to
+ * {@link #edit(Action1)} produces one {@link ChangeSet}.
+ */
+public final class MapProperty<K, V> extends PropertyNode implements Property<Map<K, V>> {
+    /**
+     * Makes the changes of one call to {@link #edit(Action1)}, and may only be used during that call.
+     */
+    public static final class Editor<K, V> {
+        private PersistentMap<K, V> map;
+        private final List<MapChange<K, V>> changes = new ArrayList<>();
+        private boolean closed;
+
+        private Editor(final PersistentMap<K, V> map) {
+            this.map = map;
+        }
+
+        private void checkOpen() {
+            checkState(!closed, "Editor used after its edit returned");
+        }
+
+        /**
+         * @return the size of the map, including the changes made so far
+         */
+        public int size() {
+            return map.size();
+        }
+
+        /**
+         * @return the value of the given key, including the changes made so far
+         */
+        public V get(final Object key) {
+            return map.get(key);
+        }
+
+        /**
+         * @return whether the given key is present, including the changes made so far
+         */
+        public boolean containsKey(final Object key) {
+            return map.containsKey(key);
+        }
+
+        /**
+         * Maps the given key to the given value, which is not a change if the key is already mapped to an equal value.
+         */
+        @SuppressWarnings("unchecked")
+        public void put(final K key, final V value) {
+            checkOpen();
+            checkNotNull(key);
+
+            final Object oldValue = map.find(key);
+            if (oldValue == PersistentMap.NOT_FOUND) {
+                map = map.plus(key, value);
+                changes.add(MapChange.forInsert(key, value));
+            } else if (!Objects.equal(oldValue, value)) {
+                map = map.plus(key, value);
+                changes.add(MapChange.forUpdate(key, (V) oldValue, value));
+            }
+        }
+
+        /**
+         * Maps each key of the given map to its value.
+         */
+        public void putAll(final Map<? extends K, ? extends V> map) {
+            for (final Map.Entry<? extends K, ? extends V> entry : map.entrySet()) {
+                put(entry.getKey(), entry.getValue());
+            }
+        }
+
+        /**
+         * Removes the given key, if present.
+         */
+        @SuppressWarnings("unchecked")
+        public void remove(final K key) {
+            checkOpen();
+
+            final Object oldValue = map.find(key);
+            if (oldValue != PersistentMap.NOT_FOUND) {
+                map = map.minus(key);
+                changes.add(MapChange.forRemove(key, (V) oldValue));
+            }
+        }
+
+        /**
+         * Removes every key.
+         */
+        public void clear() {
+            checkOpen();
+            for (final Map.Entry<K, V> entry : map.entrySet()) {
+                changes.add(MapChange.forRemove(entry.getKey(), entry.getValue()));
+            }
+            map = PersistentMap.empty();
+        }
+    }
+
+    private final ChangeLog<Map<K, V>, MapChange<K, V>> log;
+
+    /**
+     * Constructs an empty {@link MapProperty}.
+     */
+    public MapProperty() {
+        this(Collections.<K, V>emptyMap());
+    }
+
+    /**
+     * Constructs a {@link MapProperty} containing the entries of the given map.
+     */
+    public MapProperty(final Map<? extends K, ? extends V> map) {
+        super(0);
+        this.log = new ChangeLog<Map<K, V>, MapChange<K, V>>(PersistentMap.copyOf(map));
+    }
+
+    /**
+     * @return an immutable snapshot of the map, taken in O(1) time
+     */
+    public Map<K, V> snapshot() {
+        return log.getSnapshot();
+    }
+
+    /**
+     * Passes an {@link Editor} to the given action, and then applies all of its changes together as one
+     * {@link ChangeSet}, and notifies observers. If the action throws, none of its changes are applied.
+     *
+     * Edits of this property are serialized, and may not be nested.
+     */
+    public void edit(final Action1<? super Editor<K, V>> action) {
+        checkNotNull(action);
+        checkState(!log.editLock.isHeldByCurrentThread(), "Edits may not be nested");
+        checkNotComputing();
+
+        log.editLock.lock();
+        try {
+            final Editor<K, V> editor = new Editor<>((PersistentMap<K, V>) log.getSnapshot());
+            try {
+                action.call(editor);
+            } finally {
+                editor.closed = true;
+            }
+            if (editor.changes.isEmpty()) {
+                return;
+            }
+            log.append(editor.map, Collections.unmodifiableList(editor.changes));
+        } finally {
+            log.editLock.unlock();
+        }
+        onChanged();
+    }
+
+    /**
+     * Maps the given key to the given value, which is not a change if the key is already mapped to an equal value.
+     */
+    public void put(final K key, final V value) {
+        edit(new Action1<Editor<K, V>>() {
+            @Override
+            public void call(final Editor<K, V> editor) {
+                editor.put(key, value);
+            }
+        });
+    }
+
+    /**
+     * Removes the given key, if present.
+     */
+    public void remove(final K key) {
+        edit(new Action1<Editor<K, V>>() {
+            @Override
+            public void call(final Editor<K, V> editor) {
+                editor.remove(key);
+            }
+        });
+    }
+
+    @Override
+    public Map<K, V> getValue() {
+        return snapshot();
+    }
+
+    /**
+     * @return a producer for signals that send a snapshot of the map, followed by a snapshot after changes over time
+     */
+    @Override
+    public SignalProducer<Map<K, V>> getProducer() {
+        return log.getSnapshotProducer();
+    }
+
+    /**
+     * @return a producer for signals that send a {@link ChangeSet} with no changes and a snapshot of the map,
+     * followed by the {@link ChangeSet} of every later edit, in order
+     */
+    public SignalProducer<ChangeSet<Map<K, V>, MapChange<K, V>>> getChangeProducer() {
+        return log.getChangeProducer();
+    }
+
+    @Override
+    long getVersion() {
+        return log.getVersion();
+    }
+
+    @Override
+    void notifyObservers() {
+        log.notifyObservers();
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("size", snapshot().size())
+                .toString();
+    }
+}
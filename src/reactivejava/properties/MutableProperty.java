@@ -1,8 +1,143 @@
 package reactivejava.properties;
 
+import com.google.common.base.MoreObjects;
+import com.google.common.base.Objects;
+import reactivejava.Observer;
+import reactivejava.SignalProducer;
+import reactivejava.disposables.CompositeDisposable;
+import rx.functions.Action2;
+import rx.functions.Func1;
+
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+
 /**
  * Represents an observable property that can be mutated directly.
+ *
+ * Reading the value is a single volatile read, and never waits on writers. Writers swap the value with a
+ * compare-and-set, and then notify observers through a {@link ChangeNotifier}, so that observers receive values in
+ * order, but may skip intermediate values written concurrently.
  */
-public class MutableProperty<V> extends Property<V> {
-    public
+public final class MutableProperty<V> extends PropertyNode implements Property<V> {
+    // A field updater can only be created from raw class literals, so it is cast to wildcard types once here.
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    private static final AtomicReferenceFieldUpdater<MutableProperty<?>, Box<?>> BOX =
+            (AtomicReferenceFieldUpdater) AtomicReferenceFieldUpdater.newUpdater(
+                    MutableProperty.class, Box.class, "box");
+
+    private final boolean skipsRepeats;
+
+    private volatile Box<V> box;
+
+    private final BoxNotifier<V> notifier;
+
+    /**
+     * Constructs a {@link MutableProperty} with the given initial value, which notifies observers of every value set.
+     */
+    public MutableProperty(final V initialValue) {
+        this(initialValue, false);
+    }
+
+    /**
+     * Constructs a {@link MutableProperty} with the given initial value.
+     *
+     * @param skipsRepeats whether setting a value equal to the current value is ignored, instead of being sent to
+     *                     observers as a change
+     */
+    public MutableProperty(final V initialValue, final boolean skipsRepeats) {
+        super(0);
+        this.skipsRepeats = skipsRepeats;
+        this.box = new Box<>(initialValue, 0);
+        this.notifier = new BoxNotifier<V>(skipsRepeats) {
+            @Override
+            Box<V> getCurrentBox() {
+                return box;
+            }
+        };
+    }
+
+    @Override
+    public V getValue() {
+        return box.value;
+    }
+
+    /**
+     * Sets the value of the property, and notifies observers of the change.
+     */
+    public void setValue(final V value) {
+        checkNotComputing();
+        if (swapValue(value)) {
+            onChanged();
+        }
+    }
+
+    /**
+     * Sets the value of the property without notifying observers or dependents.
+     *
+     * @return whether the value changed, in which case the caller must see to notification
+     */
+    boolean swapValue(final V value) {
+        while (true) {
+            final Box<V> prevBox = box;
+            if (skipsRepeats && Objects.equal(prevBox.value, value)) {
+                return false;
+            }
+            if (BOX.compareAndSet(this, prevBox, new Box<>(value, prevBox.version + 1))) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Atomically replaces the value of the property with the result of the given function, which may be called more
+     * than once if other threads are writing concurrently, and notifies observers of the change.
+     *
+     * @return the value that was replaced
+     */
+    public V modify(final Func1<V, V> function) {
+        checkNotComputing();
+        while (true) {
+            final Box<V> prevBox = box;
+            final V value = function.call(prevBox.value);
+            if (skipsRepeats && Objects.equal(prevBox.value, value)) {
+                return prevBox.value;
+            }
+            if (BOX.compareAndSet(this, prevBox, new Box<>(value, prevBox.version + 1))) {
+                onChanged();
+                return prevBox.value;
+            }
+        }
+    }
+
+    /**
+     * @return a producer for signals that send the property's current value, followed by all changes over time
+     */
+    @Override
+    public SignalProducer<V> getProducer() {
+        return new SignalProducer<>(new Action2<Observer<V>, CompositeDisposable>() {
+            @Override
+            public void call(final Observer<V> observer, final CompositeDisposable disposable) {
+                disposable.add(notifier.subscribe(observer));
+                // The notifying thread sends the current value to the new observer before any later changes.
+                notifier.notifyObservers();
+            }
+        });
+    }
+
+    @Override
+    long getVersion() {
+        return box.version;
+    }
+
+    @Override
+    void notifyObservers() {
+        notifier.notifyObservers();
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("value", box.value)
+                .add("skipsRepeats", skipsRepeats)
+                .toString();
+    }
 }
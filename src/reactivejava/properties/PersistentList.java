@@ -0,0 +1,231 @@
+package reactivejava.properties;
+
+import java.util.AbstractList;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * An immutable list, for which each modification returns a new list that shares all but O(log n) of its structure
+ * with this one.
+ *
+ * The elements are held in an AVL tree ordered by index, in which each node also records the size of its subtree, so
+ * that accessing, inserting or removing the element at any index takes O(log n) time.
+ */
+final class PersistentList<E> extends AbstractList<E> {
+    private static final class Node<E> {
+        private final E element;
+        private final Node<E> left;
+        private final Node<E> right;
+        private final int size;
+        private final int height;
+
+        private Node(final E element, final Node<E> left, final Node<E> right) {
+            this.element = element;
+            this.left = left;
+            this.right = right;
+            this.size = size(left) + size(right) + 1;
+            this.height = Math.max(height(left), height(right)) + 1;
+        }
+    }
+
+    private static final PersistentList<?> EMPTY = new PersistentList<>(null);
+
+    private final Node<E> root;
+
+    private PersistentList(final Node<E> root) {
+        this.root = root;
+    }
+
+    @SuppressWarnings("unchecked")
+    static <E> PersistentList<E> empty() {
+        return (PersistentList<E>) EMPTY;
+    }
+
+    /**
+     * @return a list of the given elements, built in O(n) time
+     */
+    static <E> PersistentList<E> copyOf(final Iterable<? extends E> elements) {
+        final ArrayList<E> list = new ArrayList<>();
+        for (final E element : elements) {
+            list.add(element);
+        }
+        return new PersistentList<>(build(list, 0, list.size()));
+    }
+
+    private static <E> Node<E> build(final ArrayList<E> list, final int fromIndex, final int toIndex) {
+        if (fromIndex == toIndex) {
+            return null;
+        }
+        final int midIndex = (fromIndex + toIndex) >>> 1;
+        return new Node<>(list.get(midIndex), build(list, fromIndex, midIndex), build(list, midIndex + 1, toIndex));
+    }
+
+    @Override
+    public int size() {
+        return size(root);
+    }
+
+    @Override
+    public E get(final int index) {
+        checkElementIndex(index);
+
+        Node<E> node = root;
+        int remainingIndex = index;
+        while (true) {
+            final int leftSize = size(node.left);
+            if (remainingIndex < leftSize) {
+                node = node.left;
+            } else if (remainingIndex > leftSize) {
+                remainingIndex -= leftSize + 1;
+                node = node.right;
+            } else {
+                return node.element;
+            }
+        }
+    }
+
+    /**
+     * @return a list with the given element inserted at the given index, which may equal the size to append
+     */
+    PersistentList<E> plus(final int index, final E element) {
+        if ((index < 0) || (index > size())) {
+            throw new IndexOutOfBoundsException("index=" + index + ", size=" + size());
+        }
+        return new PersistentList<>(insert(root, index, element));
+    }
+
+    /**
+     * @return a list with the element at the given index replaced by the given element
+     */
+    PersistentList<E> with(final int index, final E element) {
+        checkElementIndex(index);
+        return new PersistentList<>(replace(root, index, element));
+    }
+
+    /**
+     * @return a list with the element at the given index removed
+     */
+    PersistentList<E> minus(final int index) {
+        checkElementIndex(index);
+        return new PersistentList<>(remove(root, index));
+    }
+
+    private void checkElementIndex(final int index) {
+        if ((index < 0) || (index >= size())) {
+            throw new IndexOutOfBoundsException("index=" + index + ", size=" + size());
+        }
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        return new Iterator<E>() {
+            // Holds the nodes whose elements and right subtrees remain, with the next node on top.
+            private final ArrayDeque<Node<E>> path = new ArrayDeque<>();
+
+            {
+                pushLeftPath(root);
+            }
+
+            private void pushLeftPath(Node<E> node) {
+                for (; node != null; node = node.left) {
+                    path.push(node);
+                }
+            }
+
+            @Override
+            public boolean hasNext() {
+                return !path.isEmpty();
+            }
+
+            @Override
+            public E next() {
+                if (path.isEmpty()) {
+                    throw new NoSuchElementException();
+                }
+                final Node<E> node = path.pop();
+                pushLeftPath(node.right);
+                return node.element;
+            }
+        };
+    }
+
+    private static int size(final Node<?> node) {
+        return (node != null) ? node.size : 0;
+    }
+
+    private static int height(final Node<?> node) {
+        return (node != null) ? node.height : 0;
+    }
+
+    private static <E> Node<E> insert(final Node<E> node, final int index, final E element) {
+        if (node == null) {
+            return new Node<>(element, null, null);
+        }
+
+        final int leftSize = size(node.left);
+        if (index <= leftSize) {
+            return balance(node.element, insert(node.left, index, element), node.right);
+        }
+        return balance(node.element, node.left, insert(node.right, index - leftSize - 1, element));
+    }
+
+    private static <E> Node<E> replace(final Node<E> node, final int index, final E element) {
+        final int leftSize = size(node.left);
+        if (index < leftSize) {
+            return new Node<>(node.element, replace(node.left, index, element), node.right);
+        } else if (index > leftSize) {
+            return new Node<>(node.element, node.left, replace(node.right, index - leftSize - 1, element));
+        }
+        return new Node<>(element, node.left, node.right);
+    }
+
+    private static <E> Node<E> remove(final Node<E> node, final int index) {
+        final int leftSize = size(node.left);
+        if (index < leftSize) {
+            return balance(node.element, remove(node.left, index), node.right);
+        } else if (index > leftSize) {
+            return balance(node.element, node.left, remove(node.right, index - leftSize - 1));
+        }
+
+        if (node.left == null) {
+            return node.right;
+        } else if (node.right == null) {
+            return node.left;
+        }
+        // Replace the removed element with its successor, which is the first element of the right subtree.
+        Node<E> successor = node.right;
+        while (successor.left != null) {
+            successor = successor.left;
+        }
+        return balance(successor.element, node.left, remove(node.right, 0));
+    }
+
+    /**
+     * @return a node with the given element and subtrees, rotated if their heights differ by two
+     */
+    private static <E> Node<E> balance(final E element, final Node<E> left, final Node<E> right) {
+        final int leftHeight = height(left);
+        final int rightHeight = height(right);
+
+        if (leftHeight > rightHeight + 1) {
+            if (height(left.left) >= height(left.right)) {
+                return new Node<>(left.element, left.left, new Node<>(element, left.right, right));
+            }
+            final Node<E> pivot = left.right;
+            return new Node<>(pivot.element,
+                    new Node<>(left.element, left.left, pivot.left),
+                    new Node<>(element, pivot.right, right));
+        } else if (rightHeight > leftHeight + 1) {
+            if (height(right.right) >= height(right.left)) {
+                return new Node<>(right.element, new Node<>(element, left, right.left), right.right);
+            }
+            final Node<E> pivot = right.left;
+            return new Node<>(pivot.element,
+                    new Node<>(element, left, pivot.left),
+                    new Node<>(right.element, pivot.right, right.right));
+        }
+        return new Node<>(element, left, right);
+    }
+}
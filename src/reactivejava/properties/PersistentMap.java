@@ -0,0 +1,401 @@
+package reactivejava.properties;
+
+import com.google.common.base.Objects;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * An immutable map, for which each modification returns a new map that shares all but O(log n) of its structure with
+ * this one. Keys may not be {@code null}.
+ *
+ * The entries are held in a hash array mapped trie, in which each level indexes five more bits of the key's hash, and
+ * holds only the slots in use, as marked by a bitmap. Keys whose hashes are equal share a collision node.
+ */
+final class PersistentMap<K, V> extends AbstractMap<K, V> {
+    private static final int BITS_PER_LEVEL = 5;
+    private static final int LEVEL_MASK = (1 << BITS_PER_LEVEL) - 1;
+    // Exceeds the depth of the trie, which is at most seven levels above a collision node.
+    private static final int MAX_DEPTH = 10;
+
+    /**
+     * Returned by {@link #find(Object)} for an absent key, since a key may be mapped to {@code null}.
+     */
+    static final Object NOT_FOUND = new Object();
+
+    /**
+     * Holds an array of key and value pairs, where a {@code null} key means that the value is a child node.
+     */
+    private abstract static class Node {
+        final Object[] array;
+
+        Node(final Object[] array) {
+            this.array = array;
+        }
+
+        abstract Object find(int shift, int hash, Object key);
+
+        /**
+         * @return a node with the given entry, or this node if it already maps the key to the same value
+         */
+        abstract Node put(int shift, int hash, Object key, Object value, boolean[] added);
+
+        /**
+         * @return a node without the given key, this node if it has no such key, or {@code null} if it becomes empty
+         */
+        abstract Node remove(int shift, int hash, Object key);
+    }
+
+    private static final class BitmapNode extends Node {
+        private static final BitmapNode EMPTY = new BitmapNode(0, new Object[0]);
+
+        private final int bitmap;
+
+        private BitmapNode(final int bitmap, final Object[] array) {
+            super(array);
+            this.bitmap = bitmap;
+        }
+
+        private int indexOf(final int bit) {
+            return 2 * Integer.bitCount(bitmap & (bit - 1));
+        }
+
+        @Override
+        Object find(final int shift, final int hash, final Object key) {
+            final int bit = 1 << ((hash >>> shift) & LEVEL_MASK);
+            if ((bitmap & bit) == 0) {
+                return NOT_FOUND;
+            }
+
+            final int index = indexOf(bit);
+            final Object keyOrNull = array[index];
+            final Object valueOrNode = array[index + 1];
+            if (keyOrNull == null) {
+                return ((Node) valueOrNode).find(shift + BITS_PER_LEVEL, hash, key);
+            }
+            return keyOrNull.equals(key) ? valueOrNode : NOT_FOUND;
+        }
+
+        @Override
+        Node put(final int shift, final int hash, final Object key, final Object value, final boolean[] added) {
+            final int bit = 1 << ((hash >>> shift) & LEVEL_MASK);
+            final int index = indexOf(bit);
+
+            if ((bitmap & bit) == 0) {
+                final Object[] newArray = new Object[array.length + 2];
+                System.arraycopy(array, 0, newArray, 0, index);
+                newArray[index] = key;
+                newArray[index + 1] = value;
+                System.arraycopy(array, index, newArray, index + 2, array.length - index);
+                added[0] = true;
+                return new BitmapNode(bitmap | bit, newArray);
+            }
+
+            final Object keyOrNull = array[index];
+            final Object valueOrNode = array[index + 1];
+            if (keyOrNull == null) {
+                final Node child = (Node) valueOrNode;
+                final Node newChild = child.put(shift + BITS_PER_LEVEL, hash, key, value, added);
+                return (newChild == child) ? this : new BitmapNode(bitmap, with(array, index + 1, newChild));
+            } else if (keyOrNull.equals(key)) {
+                return (valueOrNode == value) ? this : new BitmapNode(bitmap, with(array, index + 1, value));
+            }
+
+            // Push the existing entry down a level, alongside the new one.
+            added[0] = true;
+            final Object[] newArray = with(array, index + 1,
+                    createNode(shift + BITS_PER_LEVEL, keyOrNull, valueOrNode, hash, key, value));
+            newArray[index] = null;
+            return new BitmapNode(bitmap, newArray);
+        }
+
+        @Override
+        Node remove(final int shift, final int hash, final Object key) {
+            final int bit = 1 << ((hash >>> shift) & LEVEL_MASK);
+            if ((bitmap & bit) == 0) {
+                return this;
+            }
+
+            final int index = indexOf(bit);
+            final Object keyOrNull = array[index];
+            final Object valueOrNode = array[index + 1];
+            if (keyOrNull == null) {
+                final Node child = (Node) valueOrNode;
+                final Node newChild = child.remove(shift + BITS_PER_LEVEL, hash, key);
+                if (newChild == child) {
+                    return this;
+                } else if (newChild != null) {
+                    return new BitmapNode(bitmap, with(array, index + 1, newChild));
+                }
+            } else if (!keyOrNull.equals(key)) {
+                return this;
+            }
+
+            if (bitmap == bit) {
+                return null;
+            }
+            return new BitmapNode(bitmap ^ bit, withoutPair(array, index));
+        }
+
+        private static Node createNode(final int shift,
+                                       final Object key1, final Object value1,
+                                       final int hash2, final Object key2, final Object value2) {
+            final int hash1 = hash(key1);
+            if (hash1 == hash2) {
+                return new CollisionNode(hash1, new Object[] {key1, value1, key2, value2});
+            }
+            final boolean[] added = new boolean[1];
+            return EMPTY.put(shift, hash1, key1, value1, added).put(shift, hash2, key2, value2, added);
+        }
+    }
+
+    private static final class CollisionNode extends Node {
+        private final int hash;
+
+        private CollisionNode(final int hash, final Object[] array) {
+            super(array);
+            this.hash = hash;
+        }
+
+        private int indexOf(final Object key) {
+            for (int i = 0; i < array.length; i += 2) {
+                if (array[i].equals(key)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        @Override
+        Object find(final int shift, final int hash, final Object key) {
+            final int index = indexOf(key);
+            return (index >= 0) ? array[index + 1] : NOT_FOUND;
+        }
+
+        @Override
+        Node put(final int shift, final int hash, final Object key, final Object value, final boolean[] added) {
+            if (hash != this.hash) {
+                // Nest this node in a bitmap node, which can tell the hashes apart.
+                final int bit = 1 << ((this.hash >>> shift) & LEVEL_MASK);
+                return new BitmapNode(bit, new Object[] {null, this}).put(shift, hash, key, value, added);
+            }
+
+            final int index = indexOf(key);
+            if (index >= 0) {
+                return (array[index + 1] == value) ? this : new CollisionNode(hash, with(array, index + 1, value));
+            }
+
+            final Object[] newArray = Arrays.copyOf(array, array.length + 2);
+            newArray[array.length] = key;
+            newArray[array.length + 1] = value;
+            added[0] = true;
+            return new CollisionNode(hash, newArray);
+        }
+
+        @Override
+        Node remove(final int shift, final int hash, final Object key) {
+            final int index = indexOf(key);
+            if (index < 0) {
+                return this;
+            } else if (array.length == 2) {
+                return null;
+            }
+            return new CollisionNode(hash, withoutPair(array, index));
+        }
+    }
+
+    private static final PersistentMap<?, ?> EMPTY = new PersistentMap<>(null, 0);
+
+    private final Node root;
+    private final int size;
+
+    private PersistentMap(final Node root, final int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    @SuppressWarnings("unchecked")
+    static <K, V> PersistentMap<K, V> empty() {
+        return (PersistentMap<K, V>) EMPTY;
+    }
+
+    /**
+     * @return a map of the given entries
+     */
+    static <K, V> PersistentMap<K, V> copyOf(final Map<? extends K, ? extends V> map) {
+        PersistentMap<K, V> persistentMap = empty();
+        for (final Map.Entry<? extends K, ? extends V> entry : map.entrySet()) {
+            persistentMap = persistentMap.plus(entry.getKey(), entry.getValue());
+        }
+        return persistentMap;
+    }
+
+    private static int hash(final Object key) {
+        final int hash = key.hashCode();
+        return hash ^ (hash >>> 16);
+    }
+
+    private static Object[] with(final Object[] array, final int index, final Object value) {
+        final Object[] newArray = array.clone();
+        newArray[index] = value;
+        return newArray;
+    }
+
+    private static Object[] withoutPair(final Object[] array, final int index) {
+        final Object[] newArray = new Object[array.length - 2];
+        System.arraycopy(array, 0, newArray, 0, index);
+        System.arraycopy(array, index + 2, newArray, index, array.length - index - 2);
+        return newArray;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean containsKey(final Object key) {
+        return find(key) != NOT_FOUND;
+    }
+
+    @Override
+    public V get(final Object key) {
+        return getOrDefault(key, null);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V getOrDefault(final Object key, final V defaultValue) {
+        final Object value = find(key);
+        return (value != NOT_FOUND) ? (V) value : defaultValue;
+    }
+
+    /**
+     * @return the value of the given key, or {@link #NOT_FOUND} if absent
+     */
+    Object find(final Object key) {
+        if ((root == null) || (key == null)) {
+            return NOT_FOUND;
+        }
+        return root.find(0, hash(key), key);
+    }
+
+    /**
+     * @return a map with the given key mapped to the given value
+     */
+    PersistentMap<K, V> plus(final K key, final V value) {
+        checkNotNull(key);
+
+        final boolean[] added = new boolean[1];
+        final Node newRoot = ((root != null) ? root : BitmapNode.EMPTY).put(0, hash(key), key, value, added);
+        if (newRoot == root) {
+            return this;
+        }
+        return new PersistentMap<>(newRoot, added[0] ? (size + 1) : size);
+    }
+
+    /**
+     * @return a map without the given key
+     */
+    PersistentMap<K, V> minus(final Object key) {
+        if ((root == null) || (key == null)) {
+            return this;
+        }
+
+        final Node newRoot = root.remove(0, hash(key), key);
+        if (newRoot == root) {
+            return this;
+        }
+        return new PersistentMap<>(newRoot, size - 1);
+    }
+
+    @Override
+    public Set<Map.Entry<K, V>> entrySet() {
+        return new AbstractSet<Map.Entry<K, V>>() {
+            @Override
+            public int size() {
+                return size;
+            }
+
+            @Override
+            public boolean contains(final Object obj) {
+                if (!(obj instanceof Map.Entry)) {
+                    return false;
+                }
+                final Map.Entry<?, ?> entry = (Map.Entry<?, ?>) obj;
+                final Object value = find(entry.getKey());
+                return (value != NOT_FOUND) && Objects.equal(value, entry.getValue());
+            }
+
+            @Override
+            public Iterator<Map.Entry<K, V>> iterator() {
+                return new EntryIterator<>(root);
+            }
+        };
+    }
+
+    /**
+     * Visits each entry of the trie depth-first.
+     */
+    private static final class EntryIterator<K, V> implements Iterator<Map.Entry<K, V>> {
+        private final Object[][] arrays = new Object[MAX_DEPTH][];
+        private final int[] indexes = new int[MAX_DEPTH];
+        private int depth;
+        private Map.Entry<K, V> nextEntry;
+
+        private EntryIterator(final Node root) {
+            if (root != null) {
+                arrays[0] = root.array;
+                advance();
+            } else {
+                depth = -1;
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private void advance() {
+            nextEntry = null;
+            while (depth >= 0) {
+                final Object[] array = arrays[depth];
+                final int index = indexes[depth];
+                if (index == array.length) {
+                    --depth;
+                    continue;
+                }
+                indexes[depth] = index + 2;
+
+                final Object keyOrNull = array[index];
+                final Object valueOrNode = array[index + 1];
+                if (keyOrNull != null) {
+                    nextEntry = new AbstractMap.SimpleImmutableEntry<>((K) keyOrNull, (V) valueOrNode);
+                    return;
+                }
+                ++depth;
+                arrays[depth] = ((Node) valueOrNode).array;
+                indexes[depth] = 0;
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return nextEntry != null;
+        }
+
+        @Override
+        public Map.Entry<K, V> next() {
+            if (nextEntry == null) {
+                throw new NoSuchElementException();
+            }
+            final Map.Entry<K, V> entry = nextEntry;
+            advance();
+            return entry;
+        }
+    }
+}
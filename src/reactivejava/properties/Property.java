@@ -1,6 +1,12 @@
 package reactivejava.properties;
 
+import reactivejava.Observer;
 import reactivejava.SignalProducer;
+import reactivejava.disposables.CompositeDisposable;
+import reactivejava.schedulers.Scheduler;
+import rx.functions.Action2;
+
+import static com.google.common.base.Preconditions.checkNotNull;
 
 /**
  * Represents a property that allows observation of its changes.
@@ -15,4 +21,26 @@ public interface Property<V> {
      * @return a producer for Signals that will send the property's current value, followed by all changes over time
      */
     SignalProducer<V> getProducer();
+
+    /**
+     * Like {@link #getProducer()}, but with values sent on the given scheduler, and coalesced.
+     *
+     * The first change after a delivery schedules the next delivery, and any later changes before it runs only
+     * replace the value it will send. A property that changes faster than the scheduler runs deliveries therefore
+     * skips intermediate values, but never has more than one delivery scheduled.
+     *
+     * @return a producer for Signals that will send the property's current value, followed by its latest value after
+     * changes, on the given scheduler
+     */
+    default SignalProducer<V> getProducer(final Scheduler scheduler) {
+        checkNotNull(scheduler);
+        return new SignalProducer<>(new Action2<Observer<V>, CompositeDisposable>() {
+            @Override
+            public void call(final Observer<V> observer, final CompositeDisposable disposable) {
+                final CoalescingObserver<V> coalescingObserver = new CoalescingObserver<>(observer, scheduler);
+                disposable.add(coalescingObserver);
+                disposable.add(getProducer().start(coalescingObserver.getSourceObserver()));
+            }
+        });
+    }
 }
@@ -0,0 +1,151 @@
+package reactivejava.properties;
+
+import com.google.common.base.MoreObjects;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A connected component of the graph of properties, whose lock guards the dependents and cached values of its nodes.
+ *
+ * Each node begins in a graph of its own. Constructing a {@link ComputedProperty} merges the graphs of its
+ * dependencies, so that a change only ever locks the graph of the properties it can affect, and unrelated graphs
+ * never contend. A merged graph forwards to the graph it was merged into, and graphs are never split.
+ */
+final class PropertyGraph {
+    private static final AtomicLong ID_SEQUENCE = new AtomicLong();
+
+    private static final Comparator<PropertyGraph> BY_ID = new Comparator<PropertyGraph>() {
+        @Override
+        public int compare(final PropertyGraph lhs, final PropertyGraph rhs) {
+            return Long.compare(lhs.id, rhs.id);
+        }
+    };
+
+    // Graphs are always locked in order of id, so that locking several never deadlocks.
+    private final long id = ID_SEQUENCE.getAndIncrement();
+    private final ReentrantLock lock = new ReentrantLock();
+    // Only written while holding the lock of this graph and of the graph it is merged into.
+    private volatile PropertyGraph mergedGraph;
+    // Odd while a transaction writing to this graph is being committed. Only written while holding the lock.
+    private volatile long commitSequence;
+
+    /**
+     * @return the graph that this graph has been merged into, directly or indirectly, or else this graph
+     */
+    PropertyGraph getRoot() {
+        PropertyGraph graph = this;
+        for (PropertyGraph mergedGraph = graph.mergedGraph; mergedGraph != null; mergedGraph = graph.mergedGraph) {
+            graph = mergedGraph;
+        }
+        return graph;
+    }
+
+    /**
+     * Locks the root of this graph, which remains the root until unlocked.
+     *
+     * @return the locked root
+     */
+    PropertyGraph lock() {
+        while (true) {
+            final PropertyGraph root = getRoot();
+            root.lock.lock();
+            if (root.mergedGraph == null) {
+                return root;
+            }
+            root.lock.unlock();
+        }
+    }
+
+    void unlock() {
+        lock.unlock();
+    }
+
+    boolean isHeldByCurrentThread() {
+        return lock.isHeldByCurrentThread();
+    }
+
+    /**
+     * @return a number that is odd while a transaction is being committed, and that changes with each commit
+     */
+    long getCommitSequence() {
+        return commitSequence;
+    }
+
+    /**
+     * Marks the start or end of committing a transaction. Must hold the lock.
+     */
+    void advanceCommitSequence() {
+        commitSequence = commitSequence + 1;
+    }
+
+    /**
+     * Locks the roots of the graphs of the given nodes, in order of id.
+     *
+     * @return the locked roots, which must each be unlocked
+     */
+    static List<PropertyGraph> lockAll(final Iterable<? extends PropertyNode> nodes) {
+        while (true) {
+            final List<PropertyGraph> roots = new ArrayList<>();
+            for (final PropertyNode node : nodes) {
+                final PropertyGraph root = node.getGraph();
+                if (!roots.contains(root)) {
+                    roots.add(root);
+                }
+            }
+            Collections.sort(roots, BY_ID);
+
+            int lockedCount = 0;
+            boolean merged = false;
+            for (final PropertyGraph root : roots) {
+                root.lock.lock();
+                ++lockedCount;
+                if (root.mergedGraph != null) {
+                    merged = true;
+                    break;
+                }
+            }
+            if (!merged) {
+                return roots;
+            }
+
+            // A root was merged before it was locked, so start over with the new roots.
+            for (int i = 0; i < lockedCount; ++i) {
+                roots.get(i).lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Merges the graphs of the given nodes into one.
+     *
+     * @return the root of the merged graph
+     */
+    static PropertyGraph merge(final Iterable<? extends PropertyNode> nodes) {
+        final List<PropertyGraph> roots = lockAll(nodes);
+        if (roots.isEmpty()) {
+            return new PropertyGraph();
+        }
+
+        final PropertyGraph root = roots.get(0);
+        for (int i = 1; i < roots.size(); ++i) {
+            roots.get(i).mergedGraph = root;
+        }
+        for (int i = roots.size() - 1; i >= 0; --i) {
+            roots.get(i).lock.unlock();
+        }
+        return root;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("id", id)
+                .add("merged", mergedGraph != null)
+                .toString();
+    }
+}
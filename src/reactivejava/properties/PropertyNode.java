@@ -0,0 +1,215 @@
+package reactivejava.properties;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+import static com.google.common.base.Preconditions.checkState;
+
+/**
+ * A node in the graph of properties, through which changes propagate to the {@link ComputedProperty} instances that
+ * depend on it.
+ *
+ * A computed property registers as a dependent of its dependencies only while it is observed, directly or through
+ * another observed computed property. A change therefore recomputes only the observed properties downstream of it,
+ * in order of height, so that each is recomputed at most once, and only after all of its dependencies.
+ *
+ * Propagation holds the lock of the {@link PropertyGraph} containing the changed node, which contains every node that
+ * the change can affect, and no other.
+ */
+abstract class PropertyNode {
+    // The computed property whose function is running on each thread, if any.
+    private static final ThreadLocal<ComputedProperty<?>> COMPUTING_PROPERTY = new ThreadLocal<>();
+
+    private static final ComputedProperty<?>[] NO_DEPENDENTS = new ComputedProperty<?>[0];
+
+    private static final Comparator<ComputedProperty<?>> BY_HEIGHT = new Comparator<ComputedProperty<?>>() {
+        @Override
+        public int compare(final ComputedProperty<?> lhs, final ComputedProperty<?> rhs) {
+            return Integer.compare(lhs.height, rhs.height);
+        }
+    };
+
+    /**
+     * Exceeds the height of every dependency, so that sorting by height orders nodes topologically.
+     */
+    final int height;
+
+    // Only written while holding the graph lock, but read without it so that a node without dependents skips the lock.
+    private volatile ComputedProperty<?>[] dependents = NO_DEPENDENTS;
+
+    // The graph containing this node, or one that has since been merged into it.
+    private volatile PropertyGraph graph;
+
+    PropertyNode(final int height) {
+        this(height, new PropertyGraph());
+    }
+
+    PropertyNode(final int height, final PropertyGraph graph) {
+        this.height = height;
+        this.graph = graph;
+    }
+
+    /**
+     * @return the root of the graph containing this node
+     */
+    final PropertyGraph getGraph() {
+        final PropertyGraph graph = this.graph;
+        final PropertyGraph root = graph.getRoot();
+        if (root != graph) {
+            this.graph = root;
+        }
+        return root;
+    }
+
+    /**
+     * Throws if the current thread is computing the value of a {@link ComputedProperty}. Called before each write,
+     * since a computed function that wrote a property would propagate that change from within propagation.
+     */
+    static void checkNotComputing() {
+        final ComputedProperty<?> computingProperty = COMPUTING_PROPERTY.get();
+        checkState(computingProperty == null, "Properties may not be written while computing %s", computingProperty);
+    }
+
+    /**
+     * Calls the given computed property's function, during which {@link #checkNotComputing()} throws.
+     */
+    static <V> V compute(final ComputedProperty<V> property) {
+        final ComputedProperty<?> prevProperty = COMPUTING_PROPERTY.get();
+        COMPUTING_PROPERTY.set(property);
+        try {
+            return property.callFunction();
+        } finally {
+            COMPUTING_PROPERTY.set(prevProperty);
+        }
+    }
+
+    /**
+     * @return a number that, if equal to one returned earlier, means that the value of this node is equal to what it
+     * was then
+     */
+    abstract long getVersion();
+
+    /**
+     * Brings the value of this node up to date, if it is computed from other nodes. Must hold the lock of its graph.
+     */
+    void refresh() {
+    }
+
+    /**
+     * Counts an observer or dependent of this node, if it is computed from other nodes. Must hold the lock of its
+     * graph.
+     */
+    void activate() {
+    }
+
+    /**
+     * Reverses a call to {@link #activate()}. Must hold the lock of its graph.
+     */
+    void deactivate() {
+    }
+
+    /**
+     * Sends the current value of this node to its observers.
+     */
+    abstract void notifyObservers();
+
+    final void addDependent(final ComputedProperty<?> dependent) {
+        final ComputedProperty<?>[] prevDependents = dependents;
+        final int count = prevDependents.length;
+
+        final ComputedProperty<?>[] newDependents = new ComputedProperty<?>[count + 1];
+        System.arraycopy(prevDependents, 0, newDependents, 0, count);
+        newDependents[count] = dependent;
+        dependents = newDependents;
+    }
+
+    final void removeDependent(final ComputedProperty<?> dependent) {
+        final ComputedProperty<?>[] prevDependents = dependents;
+        final int count = prevDependents.length;
+
+        int index = 0;
+        while ((index < count) && (prevDependents[index] != dependent)) {
+            ++index;
+        }
+        if (index == count) {
+            return;
+        }
+
+        if (count == 1) {
+            dependents = NO_DEPENDENTS;
+        } else {
+            final ComputedProperty<?>[] newDependents = new ComputedProperty<?>[count - 1];
+            System.arraycopy(prevDependents, 0, newDependents, 0, index);
+            System.arraycopy(prevDependents, index + 1, newDependents, index, count - index - 1);
+            dependents = newDependents;
+        }
+    }
+
+    /**
+     * Called by a node that is not computed after its value changes. This recomputes its observed dependents, and
+     * then notifies the observers of this node, followed by those of each dependent whose value changed.
+     */
+    final void onChanged() {
+        if (dependents.length == 0) {
+            notifyObservers();
+            return;
+        }
+
+        final List<ComputedProperty<?>> changedDependents;
+        final PropertyGraph graph = getGraph().lock();
+        try {
+            changedDependents = recomputeDependents(Collections.singletonList(this));
+        } finally {
+            graph.unlock();
+        }
+
+        notifyObservers();
+        for (final ComputedProperty<?> dependent : changedDependents) {
+            dependent.notifyObservers();
+        }
+    }
+
+    /**
+     * Recomputes the dependents of the given changed nodes in order of height, continuing past a dependent only if its
+     * value changed. Must hold the locks of the graphs of the given nodes.
+     *
+     * @return the dependents whose values changed, in the order in which they were recomputed
+     */
+    static List<ComputedProperty<?>> recomputeDependents(final Iterable<? extends PropertyNode> changedNodes) {
+        final PriorityQueue<ComputedProperty<?>> queue = new PriorityQueue<>(BY_HEIGHT);
+        for (final PropertyNode changedNode : changedNodes) {
+            changedNode.enqueueDependents(queue);
+        }
+
+        final List<ComputedProperty<?>> changedDependents = new ArrayList<>();
+        for (ComputedProperty<?> dependent = queue.poll(); dependent != null; dependent = queue.poll()) {
+            dependent.queued = false;
+            final boolean changed;
+            try {
+                changed = dependent.recompute();
+            } catch (Throwable t) {
+                // Keep the previous value until a dependency changes again.
+                final Thread thread = Thread.currentThread();
+                thread.getUncaughtExceptionHandler().uncaughtException(thread, t);
+                continue;
+            }
+            if (changed) {
+                changedDependents.add(dependent);
+                dependent.enqueueDependents(queue);
+            }
+        }
+        return changedDependents;
+    }
+
+    final void enqueueDependents(final PriorityQueue<ComputedProperty<?>> queue) {
+        for (final ComputedProperty<?> dependent : dependents) {
+            if (!dependent.queued) {
+                dependent.queued = true;
+                queue.add(dependent);
+            }
+        }
+    }
+}
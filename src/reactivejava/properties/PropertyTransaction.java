@@ -0,0 +1,165 @@
+package reactivejava.properties;
+
+import com.google.common.base.MoreObjects;
+import rx.functions.Func0;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+
+/**
+ * Applies writes to any number of {@link MutableProperty} instances together.
+ *
+ * Writes are buffered until {@link #commit()}, which applies them all before notifying anyone. Computed properties are
+ * then recomputed once for the whole transaction, and each changed property notifies its observers once, after which
+ * observers see every write of the transaction.
+ *
+ * No computed property ever sees some writes of a transaction without the others, since it is only computed while
+ * holding the lock of its graph, which the commit holds while writing. Reading a single property with
+ * {@link Property#getValue()} likewise sees either its old or its new value. But reading several properties one after
+ * another may see some writes of a transaction without the others, unless done through {@link #read(List, Func0)}.
+ */
+public final class PropertyTransaction {
+    // Maps each written property to its last written value, in the order first written.
+    private final Map<MutableProperty<?>, Object> values = new LinkedHashMap<>();
+    private boolean committed;
+
+    /**
+     * Buffers writing the given value to the given property. If the property is written more than once, only the last
+     * value is committed.
+     */
+    public <V> void setValue(final MutableProperty<V> property, final V value) {
+        checkState(!committed, "Transaction already committed");
+        values.put(checkNotNull(property), value);
+    }
+
+    /**
+     * @return the value last written to the given property in this transaction, or else its current value
+     */
+    @SuppressWarnings("unchecked")
+    public <V> V getValue(final MutableProperty<V> property) {
+        if (values.containsKey(property)) {
+            return (V) values.get(property);
+        }
+        return property.getValue();
+    }
+
+    /**
+     * Applies all buffered writes, recomputes the affected computed properties, and then notifies the observers of
+     * each changed property once.
+     */
+    public void commit() {
+        checkState(!committed, "Transaction already committed");
+        PropertyNode.checkNotComputing();
+        committed = true;
+
+        final List<PropertyNode> changedProperties = new ArrayList<>(values.size());
+        final List<ComputedProperty<?>> changedDependents;
+        // Holding the graph locks also serializes commits that write to the same graphs.
+        final List<PropertyGraph> graphs = PropertyGraph.lockAll(values.keySet());
+        try {
+            for (final PropertyGraph graph : graphs) {
+                graph.advanceCommitSequence();
+            }
+            try {
+                for (final Map.Entry<MutableProperty<?>, Object> entry : values.entrySet()) {
+                    if (swapValue(entry.getKey(), entry.getValue())) {
+                        changedProperties.add(entry.getKey());
+                    }
+                }
+                changedDependents = PropertyNode.recomputeDependents(changedProperties);
+            } finally {
+                for (final PropertyGraph graph : graphs) {
+                    graph.advanceCommitSequence();
+                }
+            }
+        } finally {
+            for (int i = graphs.size() - 1; i >= 0; --i) {
+                graphs.get(i).unlock();
+            }
+        }
+
+        for (final PropertyNode property : changedProperties) {
+            property.notifyObservers();
+        }
+        for (final ComputedProperty<?> dependent : changedDependents) {
+            dependent.notifyObservers();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <V> boolean swapValue(final MutableProperty<V> property, final Object value) {
+        return property.swapValue((V) value);
+    }
+
+    /**
+     * Calls the given function, which reads the given properties, such that it sees either all or none of the writes of
+     * each committed transaction. This never blocks a commit, but the function is called again if a commit writing to
+     * the graph of any of the properties overlaps it, so commits to unrelated graphs never delay it.
+     *
+     * @return the result of the function
+     * @throws IllegalStateException if called while committing a transaction that writes to the graph of any of the
+     *                               properties, such as from a computed function, which would otherwise wait forever
+     */
+    public static <V> V read(final List<? extends Property<?>> properties, final Func0<V> function) {
+        checkNotNull(function);
+
+        final PropertyNode[] nodes = new PropertyNode[properties.size()];
+        for (int i = 0; i < nodes.length; ++i) {
+            final Property<?> property = properties.get(i);
+            checkArgument(property instanceof PropertyNode, "Unsupported property: %s", property);
+            nodes[i] = (PropertyNode) property;
+        }
+
+        final PropertyGraph[] graphs = new PropertyGraph[nodes.length];
+        final long[] sequences = new long[nodes.length];
+        while (true) {
+            boolean committing = false;
+            for (int i = 0; i < nodes.length; ++i) {
+                graphs[i] = nodes[i].getGraph();
+                sequences[i] = graphs[i].getCommitSequence();
+                if ((sequences[i] & 1) != 0) {
+                    checkState(!graphs[i].isHeldByCurrentThread(),
+                            "read() may not be called while committing a transaction to the same graph");
+                    committing = true;
+                    break;
+                }
+            }
+
+            if (!committing) {
+                final V value = function.call();
+                if (isUnchanged(nodes, graphs, sequences)) {
+                    return value;
+                }
+            }
+            Thread.onSpinWait();
+        }
+    }
+
+    /**
+     * @return whether no graph of the given nodes has been merged or committed to since its sequence was read
+     */
+    private static boolean isUnchanged(final PropertyNode[] nodes,
+                                       final PropertyGraph[] graphs,
+                                       final long[] sequences) {
+        for (int i = 0; i < nodes.length; ++i) {
+            if ((nodes[i].getGraph() != graphs[i]) || (graphs[i].getCommitSequence() != sequences[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("writeCount", values.size())
+                .add("committed", committed)
+                .toString();
+    }
+}
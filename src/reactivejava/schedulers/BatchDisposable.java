@@ -0,0 +1,38 @@
+package reactivejava.schedulers;
+
+import reactivejava.disposables.Disposable;
+
+/**
+ * A {@link Disposable} for a batch of actions enqueued by {@link Scheduler#scheduleAll(java.util.List)}, which cancels
+ * every action in the batch that has not yet begun.
+ */
+final class BatchDisposable implements Disposable {
+    private final Disposable[] disposables;
+    private volatile boolean disposed;
+
+    /**
+     * Constructs a {@link BatchDisposable} for the given disposables, any of which may be {@code null}.
+     */
+    BatchDisposable(final Disposable[] disposables) {
+        this.disposables = disposables;
+    }
+
+    @Override
+    public boolean isDisposed() {
+        return disposed;
+    }
+
+    @Override
+    public void dispose() {
+        if (disposed) {
+            return;
+        }
+        disposed = true;
+
+        for (Disposable disposable : disposables) {
+            if (disposable != null) {
+                disposable.dispose();
+            }
+        }
+    }
+}
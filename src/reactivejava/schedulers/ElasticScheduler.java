@@ -0,0 +1,355 @@
+package reactivejava.schedulers;
+
+import com.google.common.base.MoreObjects;
+import reactivejava.disposables.Disposable;
+import rx.functions.Action0;
+
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.locks.LockSupport;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+
+/**
+ * A scheduler for blocking work, which runs each action on a worker thread, creating threads as needed up to a cap.
+ *
+ * Idle workers are kept on a lock-free stack and reused, most recently idle first, so that the least recently used
+ * workers are the ones that reach the idle timeout and exit. Once the cap is reached, actions wait in a bounded queue
+ * for the next free worker, and are rejected if that queue is full.
+ *
+ * After {@link #shutdown()}, idle workers exit at once, and busy workers exit once no queued actions remain.
+ */
+public final class ElasticScheduler implements Scheduler {
+    /**
+     * A snapshot of the scheduler's worker and queue counts. The counts are read independently, and so are
+     * approximate while the scheduler is in use.
+     */
+    public static final class Metrics {
+        public final int activeCount;
+        public final int idleCount;
+        public final int queuedCount;
+
+        private Metrics(final int activeCount, final int idleCount, final int queuedCount) {
+            this.activeCount = activeCount;
+            this.idleCount = idleCount;
+            this.queuedCount = queuedCount;
+        }
+
+        @Override
+        public String toString() {
+            return MoreObjects.toStringHelper(this)
+                    .add("activeCount", activeCount)
+                    .add("idleCount", idleCount)
+                    .add("queuedCount", queuedCount)
+                    .toString();
+        }
+    }
+
+    /**
+     * An action to run on a worker, which is also the {@link Disposable} for it.
+     */
+    private static final class Task implements Disposable {
+        private volatile Action0 action;
+
+        private Task(final Action0 action) {
+            this.action = action;
+        }
+
+        private void run() {
+            final Action0 action = this.action;
+            if (action != null) {
+                this.action = null;
+                action.call();
+            }
+        }
+
+        @Override
+        public boolean isDisposed() {
+            return action == null;
+        }
+
+        @Override
+        public void dispose() {
+            action = null;
+        }
+    }
+
+    /**
+     * Handed to a worker to make it poll the queue, rather than run a particular task. Running it does nothing.
+     */
+    private static final Task POLL_QUEUE = new Task(null);
+
+    private static final int BUSY = 0;
+    private static final int IDLE = 1;
+    private static final int TERMINATED = 2;
+
+    private static final AtomicIntegerFieldUpdater<Worker> STATE =
+            AtomicIntegerFieldUpdater.newUpdater(Worker.class, "state");
+
+    private final class Worker implements Runnable {
+        private final Thread thread;
+        private volatile int state = BUSY;
+        private volatile Task handoff;
+
+        private Worker(final Task task) {
+            this.handoff = task;
+            this.thread = new Thread(this, "ElasticScheduler-" + threadIndex.incrementAndGet());
+            this.thread.setDaemon(true);
+        }
+
+        /**
+         * Hands a task to this worker, which must have been moved out of the idle state by the caller.
+         */
+        private void assign(final Task task) {
+            handoff = task;
+            LockSupport.unpark(thread);
+        }
+
+        @Override
+        public void run() {
+            Task task = handoff;
+            handoff = null;
+            while (task != null) {
+                runTask(task);
+
+                task = queue.poll();
+                if (task != null) {
+                    queuedCount.decrementAndGet();
+                    continue;
+                }
+                task = awaitTask();
+            }
+        }
+
+        private void runTask(final Task task) {
+            try {
+                task.run();
+            } catch (Throwable t) {
+                thread.getUncaughtExceptionHandler().uncaughtException(thread, t);
+            }
+        }
+
+        /**
+         * Parks this worker on the idle stack until it is handed a task, returning {@code null} if it timed out.
+         */
+        private Task awaitTask() {
+            state = IDLE;
+            idleCount.incrementAndGet();
+            idleWorkers.push(this);
+
+            // An action may have been queued after this worker last polled, while it did not yet appear idle.
+            if (!queue.isEmpty() && STATE.compareAndSet(this, IDLE, BUSY)) {
+                idleCount.decrementAndGet();
+                idleWorkers.removeFirstOccurrence(this);
+                return POLL_QUEUE;
+            }
+
+            final long deadline = System.nanoTime() + idleTimeoutNanos;
+            while (true) {
+                final Task task = handoff;
+                if (task != null) {
+                    handoff = null;
+                    return task;
+                }
+
+                final long remaining = deadline - System.nanoTime();
+                if (((remaining <= 0) || shutdown) && STATE.compareAndSet(this, IDLE, TERMINATED)) {
+                    idleCount.decrementAndGet();
+                    threadCount.decrementAndGet();
+                    // The least recently used worker is normally at the bottom of the stack.
+                    idleWorkers.removeLastOccurrence(this);
+
+                    // An action may have been queued by a producer that saw this worker idle but could not claim it,
+                    // and that then saw no free thread before the count above was decremented.
+                    if (!queue.isEmpty() && tryReserveThread()) {
+                        state = BUSY;
+                        return POLL_QUEUE;
+                    }
+                    return null;
+                }
+                LockSupport.parkNanos(this, Math.max(remaining, 0) + 1);
+            }
+        }
+    }
+
+    private final int maxThreads;
+    private final int maxQueuedActions;
+    private final long idleTimeoutNanos;
+
+    private final Deque<Worker> idleWorkers = new ConcurrentLinkedDeque<>();
+    private final Queue<Task> queue = new ConcurrentLinkedQueue<>();
+
+    private final AtomicInteger threadCount = new AtomicInteger();
+    private final AtomicInteger idleCount = new AtomicInteger();
+    private final AtomicInteger queuedCount = new AtomicInteger();
+    private final AtomicInteger threadIndex = new AtomicInteger();
+
+    private volatile boolean shutdown;
+
+    /**
+     * Constructs an {@link ElasticScheduler}.
+     *
+     * @param maxThreads the maximum number of worker threads
+     * @param maxQueuedActions the maximum number of actions that may wait for a worker once all threads are busy
+     * @param idleTimeout how long, in milliseconds, an idle worker is kept before its thread exits
+     */
+    public ElasticScheduler(final int maxThreads, final int maxQueuedActions, final long idleTimeout) {
+        checkArgument(maxThreads > 0, "maxThreads <= 0: %s", maxThreads);
+        checkArgument(maxQueuedActions >= 0, "maxQueuedActions < 0: %s", maxQueuedActions);
+        checkArgument(idleTimeout > 0, "idleTimeout <= 0: %s", idleTimeout);
+
+        this.maxThreads = maxThreads;
+        this.maxQueuedActions = maxQueuedActions;
+        this.idleTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(idleTimeout);
+    }
+
+    /**
+     * @return an idle worker that has been moved to the busy state, or {@code null} if there is none
+     */
+    private Worker claimIdleWorker() {
+        for (Worker worker = idleWorkers.pollFirst(); worker != null; worker = idleWorkers.pollFirst()) {
+            if (STATE.compareAndSet(worker, IDLE, BUSY)) {
+                idleCount.decrementAndGet();
+                return worker;
+            }
+        }
+        return null;
+    }
+
+    private boolean tryReserveThread() {
+        for (int count = threadCount.get(); count < maxThreads; count = threadCount.get()) {
+            if (threadCount.compareAndSet(count, count + 1)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Runs the action on an idle worker if there is one, or else on a new worker if below the thread cap, or else
+     * queues it for the next free worker.
+     *
+     * @throws RejectedExecutionException if all workers are busy and the queue is full
+     */
+    @Override
+    public Disposable schedule(final Action0 action) {
+        checkState(!shutdown, "scheduler is shut down");
+        final Task task = new Task(checkNotNull(action));
+
+        final Worker idleWorker = claimIdleWorker();
+        if (idleWorker != null) {
+            idleWorker.assign(task);
+            return task;
+        }
+
+        if (tryReserveThread()) {
+            new Worker(task).thread.start();
+            return task;
+        }
+
+        if (queuedCount.incrementAndGet() > maxQueuedActions) {
+            queuedCount.decrementAndGet();
+            throw new RejectedExecutionException("queue is full: " + maxQueuedActions);
+        }
+        queue.add(task);
+
+        // A worker may have gone idle after the checks above, without seeing this task, or one may have exited and
+        // freed its thread. Either that worker sees this task when it rechecks the queue, or this sees the worker.
+        final Worker lateWorker = claimIdleWorker();
+        if (lateWorker != null) {
+            lateWorker.assign(POLL_QUEUE);
+        } else if (tryReserveThread()) {
+            new Worker(POLL_QUEUE).thread.start();
+        }
+        return task;
+    }
+
+    /**
+     * Runs as many of the actions as possible on idle or new workers, and then queues the rest together, reserving
+     * space in the queue for all of them at once. If any action is {@code null}, none of them are scheduled.
+     *
+     * @throws RejectedExecutionException if the queue cannot hold every action left over once all workers are busy, in
+     * which case none of those actions are queued, although the actions already handed to workers still run
+     */
+    @Override
+    public Disposable scheduleAll(final List<? extends Action0> actions) {
+        checkState(!shutdown, "scheduler is shut down");
+        final Task[] tasks = new Task[actions.size()];
+        for (int i = 0; i < tasks.length; ++i) {
+            tasks[i] = new Task(checkNotNull(actions.get(i)));
+        }
+
+        int started = 0;
+        for (; started < tasks.length; ++started) {
+            final Worker idleWorker = claimIdleWorker();
+            if (idleWorker != null) {
+                idleWorker.assign(tasks[started]);
+            } else if (tryReserveThread()) {
+                new Worker(tasks[started]).thread.start();
+            } else {
+                break;
+            }
+        }
+
+        final int remaining = tasks.length - started;
+        if (remaining == 0) {
+            return new BatchDisposable(tasks);
+        }
+        if (queuedCount.addAndGet(remaining) > maxQueuedActions) {
+            queuedCount.addAndGet(-remaining);
+            throw new RejectedExecutionException("queue is full: " + maxQueuedActions);
+        }
+        queue.addAll(Arrays.asList(tasks).subList(started, tasks.length));
+
+        // As in schedule(Action0), wake a worker that went idle or freed its thread after the checks above, once for
+        // each queued task at most.
+        for (int i = 0; i < remaining; ++i) {
+            final Worker lateWorker = claimIdleWorker();
+            if (lateWorker != null) {
+                lateWorker.assign(POLL_QUEUE);
+            } else if (tryReserveThread()) {
+                new Worker(POLL_QUEUE).thread.start();
+            } else {
+                break;
+            }
+        }
+        return new BatchDisposable(tasks);
+    }
+
+    /**
+     * Stops accepting actions. Idle workers exit at once, and busy workers exit once no queued actions remain.
+     */
+    public void shutdown() {
+        shutdown = true;
+        for (final Worker worker : idleWorkers) {
+            LockSupport.unpark(worker.thread);
+        }
+    }
+
+    /**
+     * @return a snapshot of the number of active, idle and queued items
+     */
+    public Metrics getMetrics() {
+        final int idle = idleCount.get();
+        return new Metrics(Math.max(0, threadCount.get() - idle), idle, queuedCount.get());
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("maxThreads", maxThreads)
+                .add("maxQueuedActions", maxQueuedActions)
+                .add("metrics", getMetrics())
+                .toString();
+    }
+}
@@ -0,0 +1,418 @@
+package reactivejava.schedulers;
+
+import com.google.common.base.MoreObjects;
+import reactivejava.disposables.Disposable;
+import rx.functions.Action0;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * A scheduler that runs actions on the threads of a {@link ForkJoinPool}, intended for CPU-bound work.
+ *
+ * Actions wait in a single FIFO queue owned by this scheduler, guarded by one lock, and are drained by at most one
+ * runner task per thread of the pool. Any free runner takes the action at the head of that queue, so an action
+ * scheduled from a worker is not kept on that worker, and this does not use the pool's per-worker queues or work
+ * stealing for actions. In exchange, since the pool only ever holds runners, disposing an action removes it from this
+ * scheduler's queue, and leaves nothing behind in the pool.
+ *
+ * An exception thrown by an action is passed to the uncaught exception handler of the thread that ran it.
+ *
+ * Dates are measured in milliseconds, as returned by {@link System#currentTimeMillis()}. Delayed actions wait in a
+ * shared timer queue, rather than in the pool, and are removed from that queue as soon as they are disposed.
+ */
+public final class ForkJoinScheduler implements DateScheduler {
+    public static final int MAX_BATCH_SIZE = 64;
+
+    /**
+     * Lazily creates the single timer thread shared by all {@link ForkJoinScheduler} instances.
+     */
+    private static final class TimerHolder {
+        private static final ScheduledThreadPoolExecutor TIMER;
+
+        static {
+            TIMER = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+                @Override
+                public Thread newThread(final Runnable runnable) {
+                    final Thread thread = new Thread(runnable, "ForkJoinScheduler-timer");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+            TIMER.setRemoveOnCancelPolicy(true);
+        }
+    }
+
+    /**
+     * An action to run once, which is also the {@link Disposable} for that action.
+     *
+     * If delayed, this task is first submitted to the timer as a {@link Runnable}, which then enqueues it.
+     */
+    private final class Task implements Runnable, Disposable {
+        private volatile Action0 action;
+        private volatile ScheduledFuture<?> future;
+
+        // Only accessed while holding the lock.
+        private Task prev;
+        private Task next;
+        private boolean queued;
+
+        private Task(final Action0 action) {
+            this.action = checkNotNull(action);
+        }
+
+        @Override
+        public void run() {
+            enqueue(this);
+        }
+
+        /**
+         * Publishes the timer's future for this task, cancelling it if this task was disposed before it could be
+         * published.
+         */
+        private void setFuture(final ScheduledFuture<?> future) {
+            this.future = future;
+            if (action == null) {
+                future.cancel(false);
+            }
+        }
+
+        @Override
+        public boolean isDisposed() {
+            return action == null;
+        }
+
+        @Override
+        public void dispose() {
+            if (action == null) {
+                return;
+            }
+            action = null;
+
+            final ScheduledFuture<?> future = this.future;
+            if (future != null) {
+                future.cancel(false);
+            }
+            remove(this);
+        }
+    }
+
+    /**
+     * An action that the timer enqueues at a fixed rate, which is also the {@link Disposable} for it.
+     *
+     * A repetition that comes due while the previous one is still queued or running is skipped, so that repetitions
+     * never run concurrently.
+     */
+    private final class RepeatingTask implements Runnable, Disposable {
+        private volatile Action0 action;
+        private volatile ScheduledFuture<?> future;
+        // Whether a repetition is queued or running, and if so, the task for it.
+        private final AtomicBoolean pending = new AtomicBoolean();
+        private volatile Task pendingTask;
+
+        private final Action0 callAction = new Action0() {
+            @Override
+            public void call() {
+                try {
+                    final Action0 action = RepeatingTask.this.action;
+                    if (action != null) {
+                        action.call();
+                    }
+                } finally {
+                    pending.set(false);
+                }
+            }
+        };
+
+        private RepeatingTask(final Action0 action) {
+            this.action = checkNotNull(action);
+        }
+
+        @Override
+        public void run() {
+            if ((action != null) && pending.compareAndSet(false, true)) {
+                final Task task = new Task(callAction);
+                pendingTask = task;
+                enqueue(task);
+            }
+        }
+
+        /**
+         * Publishes the timer's future for this task, cancelling it if this task was disposed before it could be
+         * published.
+         */
+        private void setFuture(final ScheduledFuture<?> future) {
+            this.future = future;
+            if (action == null) {
+                future.cancel(false);
+            }
+        }
+
+        @Override
+        public boolean isDisposed() {
+            return action == null;
+        }
+
+        @Override
+        public void dispose() {
+            action = null;
+
+            final ScheduledFuture<?> future = this.future;
+            if (future != null) {
+                future.cancel(false);
+            }
+            final Task pendingTask = this.pendingTask;
+            if (pendingTask != null) {
+                pendingTask.dispose();
+            }
+        }
+    }
+
+    /**
+     * Runs queued actions until the queue is empty, or until it has run {@link #MAX_BATCH_SIZE} actions, after which
+     * it forks itself again to be fair to other tasks in the pool.
+     */
+    private final class Runner extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected void compute() {
+            for (int i = 0; i < MAX_BATCH_SIZE; ++i) {
+                final Task task = poll();
+                if (task == null) {
+                    return;
+                }
+
+                final Action0 action = task.action;
+                if (action != null) {
+                    task.action = null;
+                    try {
+                        action.call();
+                    } catch (Throwable t) {
+                        final Thread thread = Thread.currentThread();
+                        thread.getUncaughtExceptionHandler().uncaughtException(thread, t);
+                    }
+                }
+            }
+            // This runner remains counted, so it must run again even if the queue has since emptied.
+            new Runner().fork();
+        }
+    }
+
+    private final ForkJoinPool pool;
+    private final int maxRunnerCount;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    // The remaining fields are only accessed while holding the lock.
+    private Task head;
+    private Task tail;
+    private int runnerCount;
+
+    /**
+     * Constructs a {@link ForkJoinScheduler} backed by {@link ForkJoinPool#commonPool()}.
+     */
+    public ForkJoinScheduler() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Constructs a {@link ForkJoinScheduler} backed by the given pool.
+     */
+    public ForkJoinScheduler(final ForkJoinPool pool) {
+        this.pool = checkNotNull(pool);
+        this.maxRunnerCount = pool.getParallelism();
+    }
+
+    private static long getDelay(final long date, final long currentDate) {
+        return Math.max(0, date - currentDate);
+    }
+
+    /**
+     * Appends the given task to the queue, and starts a runner if fewer runners than threads are running.
+     */
+    private void enqueue(final Task task) {
+        final boolean startsRunner;
+        lock.lock();
+        try {
+            if (task.action == null) {
+                return;
+            }
+
+            link(task);
+
+            startsRunner = runnerCount < maxRunnerCount;
+            if (startsRunner) {
+                ++runnerCount;
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        if (startsRunner) {
+            startRunner();
+        }
+    }
+
+    /**
+     * Appends the given tasks to the queue under a single acquisition of the lock, and starts as many runners as there
+     * are tasks, up to one per thread.
+     */
+    private void enqueueAll(final Task[] tasks) {
+        final int startedRunnerCount;
+        lock.lock();
+        try {
+            for (final Task task : tasks) {
+                link(task);
+            }
+
+            startedRunnerCount = Math.min(tasks.length, maxRunnerCount - runnerCount);
+            if (startedRunnerCount > 0) {
+                runnerCount += startedRunnerCount;
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        for (int i = 0; i < startedRunnerCount; ++i) {
+            startRunner();
+        }
+    }
+
+    private void startRunner() {
+        final Runner runner = new Runner();
+        final Thread currentThread = Thread.currentThread();
+        if ((currentThread instanceof ForkJoinWorkerThread) &&
+                (((ForkJoinWorkerThread) currentThread).getPool() == pool)) {
+            runner.fork();
+        } else {
+            pool.execute(runner);
+        }
+    }
+
+    /**
+     * Removes the task at the head of the queue, or else stops counting the calling runner.
+     *
+     * @return the removed task, or {@code null} if the queue is empty, in which case the calling runner must return
+     */
+    private Task poll() {
+        lock.lock();
+        try {
+            final Task task = head;
+            if (task == null) {
+                --runnerCount;
+                return null;
+            }
+            unlink(task);
+            return task;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void remove(final Task task) {
+        lock.lock();
+        try {
+            if (task.queued) {
+                unlink(task);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void link(final Task task) {
+        task.queued = true;
+        task.prev = tail;
+        if (tail != null) {
+            tail.next = task;
+        } else {
+            head = task;
+        }
+        tail = task;
+    }
+
+    private void unlink(final Task task) {
+        if (task.prev != null) {
+            task.prev.next = task.next;
+        } else {
+            head = task.next;
+        }
+        if (task.next != null) {
+            task.next.prev = task.prev;
+        } else {
+            tail = task.prev;
+        }
+        task.prev = null;
+        task.next = null;
+        task.queued = false;
+    }
+
+    @Override
+    public long getCurrentDate() {
+        return System.currentTimeMillis();
+    }
+
+    /**
+     * Enqueues an action to run on the pool.
+     */
+    @Override
+    public Disposable schedule(final Action0 action) {
+        final Task task = new Task(action);
+        enqueue(task);
+        return task;
+    }
+
+    /**
+     * Enqueues the actions under a single acquisition of the lock. If any action is {@code null}, none of them are
+     * enqueued.
+     */
+    @Override
+    public Disposable scheduleAll(final List<? extends Action0> actions) {
+        final Task[] tasks = new Task[actions.size()];
+        for (int i = 0; i < tasks.length; ++i) {
+            tasks[i] = new Task(actions.get(i));
+        }
+        enqueueAll(tasks);
+        return new BatchDisposable(tasks);
+    }
+
+    @Override
+    public Disposable scheduleAfterDate(final long date, final Action0 action) {
+        final Task task = new Task(action);
+        task.setFuture(TimerHolder.TIMER.schedule(task, getDelay(date, getCurrentDate()), TimeUnit.MILLISECONDS));
+        return task;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * A repetition that comes due while the previous one has not finished is skipped.
+     */
+    @Override
+    public Disposable scheduleAfterDate(final long date, final Action0 action, final long repeatInterval) {
+        checkArgument(repeatInterval > 0, "repeatInterval <= 0: %s", repeatInterval);
+
+        final RepeatingTask task = new RepeatingTask(action);
+        task.setFuture(TimerHolder.TIMER.scheduleAtFixedRate(
+                task, getDelay(date, getCurrentDate()), repeatInterval, TimeUnit.MILLISECONDS));
+        return task;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("pool", pool)
+                .toString();
+    }
+}
@@ -0,0 +1,423 @@
+package reactivejava.schedulers;
+
+import com.google.common.base.MoreObjects;
+import reactivejava.disposables.Disposable;
+import rx.functions.Action0;
+
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.function.LongSupplier;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+
+/**
+ * A real-time {@link DateScheduler} built on a hierarchical hashed timer wheel, suitable for very large numbers of
+ * pending timers.
+ *
+ * Scheduling and disposal are O(1): both only enqueue onto a lock-free queue, which a dedicated ticker thread applies
+ * to the wheel once per tick. Actions fire with a resolution of one tick, and are handed off to a worker
+ * {@link Scheduler} rather than run on the ticker thread.
+ *
+ * Dates are measured in milliseconds since the epoch, but advance with {@link System#nanoTime()} from the date at
+ * which this scheduler was constructed, so that adjustments to the wall clock do not move deadlines.
+ */
+public final class HashedWheelScheduler implements DateScheduler {
+    public static final int DEFAULT_WHEEL_SIZE = 256;
+    public static final int DEFAULT_LEVELS = 4;
+
+    private static final LongSupplier SYSTEM_NANO_CLOCK = new LongSupplier() {
+        @Override
+        public long getAsLong() {
+            return System.nanoTime();
+        }
+    };
+
+    private static final int PENDING = 0;
+    private static final int DISPOSED = 1;
+
+    /**
+     * A timer in the wheel, which is also the {@link Disposable} for it and the action handed to the worker.
+     *
+     * Apart from {@link #state}, all fields are owned by the ticker thread once the entry is published.
+     */
+    private static final class Entry implements Action0, Disposable {
+        private static final AtomicIntegerFieldUpdater<Entry> STATE =
+                AtomicIntegerFieldUpdater.newUpdater(Entry.class, "state");
+
+        private final HashedWheelScheduler scheduler;
+        private final Action0 action;
+        private final long repeatInterval;
+        private volatile int state = PENDING;
+
+        private long date;
+        private long deadlineTick;
+        private int level = -1;
+        private int slot;
+        private Entry prev;
+        private Entry next;
+
+        private Entry(final HashedWheelScheduler scheduler,
+                      final long date,
+                      final Action0 action,
+                      final long repeatInterval) {
+            this.scheduler = scheduler;
+            this.date = date;
+            this.action = checkNotNull(action);
+            this.repeatInterval = repeatInterval;
+        }
+
+        @Override
+        public void call() {
+            if (state == PENDING) {
+                action.call();
+            }
+        }
+
+        @Override
+        public boolean isDisposed() {
+            return state == DISPOSED;
+        }
+
+        @Override
+        public void dispose() {
+            if (STATE.compareAndSet(this, PENDING, DISPOSED)) {
+                scheduler.disposedEntries.add(this);
+            }
+        }
+
+        @Override
+        public String toString() {
+            return MoreObjects.toStringHelper(this)
+                    .add("date", date)
+                    .add("action", action)
+                    .toString();
+        }
+    }
+
+    private final Scheduler worker;
+    private final long tickDuration;
+    private final int wheelBits;
+    private final int wheelMask;
+    private final int levels;
+
+    // The heads of the doubly-linked lists of entries in each slot, indexed by level then slot.
+    private final Entry[][] wheels;
+
+    private final Queue<Entry> pendingEntries = new ConcurrentLinkedQueue<>();
+    private final Queue<Entry> disposedEntries = new ConcurrentLinkedQueue<>();
+
+    private final LongSupplier nanoClock;
+    private final long startNanos;
+    private final long startDate;
+    // Null if the wheel is advanced by calls to tick() instead.
+    private final Thread ticker;
+    private volatile boolean shutdown;
+    private long currentTick;
+
+    /**
+     * Constructs a {@link HashedWheelScheduler} with the given tick duration, using {@link #DEFAULT_WHEEL_SIZE} slots
+     * on each of {@link #DEFAULT_LEVELS} levels.
+     */
+    public HashedWheelScheduler(final Scheduler worker, final long tickDuration) {
+        this(worker, tickDuration, DEFAULT_WHEEL_SIZE, DEFAULT_LEVELS);
+    }
+
+    /**
+     * Constructs a {@link HashedWheelScheduler}.
+     *
+     * @param worker the scheduler on which expired actions run
+     * @param tickDuration the resolution of the wheel, in milliseconds
+     * @param wheelSize the number of slots on each level, which must be a power of two
+     * @param levels the number of levels, where each level spans {@code wheelSize} times more ticks than the last
+     */
+    public HashedWheelScheduler(final Scheduler worker,
+                                final long tickDuration,
+                                final int wheelSize,
+                                final int levels) {
+        this(worker, tickDuration, wheelSize, levels, SYSTEM_NANO_CLOCK, true);
+    }
+
+    /**
+     * Constructs a {@link HashedWheelScheduler} that reads the given clock, in nanoseconds. If {@code startsTicker} is
+     * {@code false}, no ticker thread is started, and the wheel only advances when {@link #tick()} is called.
+     */
+    HashedWheelScheduler(final Scheduler worker,
+                         final long tickDuration,
+                         final int wheelSize,
+                         final int levels,
+                         final LongSupplier nanoClock,
+                         final boolean startsTicker) {
+        checkArgument(tickDuration > 0, "tickDuration <= 0: %s", tickDuration);
+        checkArgument((wheelSize > 1) && (Integer.bitCount(wheelSize) == 1),
+                "wheelSize is not a power of two greater than 1: %s", wheelSize);
+        checkArgument(levels > 0, "levels <= 0: %s", levels);
+
+        this.worker = checkNotNull(worker);
+        this.tickDuration = tickDuration;
+        this.wheelBits = Integer.numberOfTrailingZeros(wheelSize);
+        this.wheelMask = wheelSize - 1;
+        this.levels = Math.min(levels, 63 / wheelBits);
+        this.wheels = new Entry[this.levels][wheelSize];
+
+        this.nanoClock = checkNotNull(nanoClock);
+        this.startNanos = nanoClock.getAsLong();
+        this.startDate = System.currentTimeMillis();
+        if (startsTicker) {
+            this.ticker = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    runTicker();
+                }
+            }, "HashedWheelScheduler-ticker");
+            this.ticker.setDaemon(true);
+            this.ticker.start();
+        } else {
+            this.ticker = null;
+        }
+    }
+
+    @Override
+    public long getCurrentDate() {
+        return startDate + TimeUnit.NANOSECONDS.toMillis(nanoClock.getAsLong() - startNanos);
+    }
+
+    /**
+     * Hands the action directly to the worker scheduler.
+     */
+    @Override
+    public Disposable schedule(final Action0 action) {
+        return worker.schedule(action);
+    }
+
+    /**
+     * Hands the actions directly to the worker scheduler, as a single batch.
+     */
+    @Override
+    public Disposable scheduleAll(final List<? extends Action0> actions) {
+        return worker.scheduleAll(actions);
+    }
+
+    private Disposable schedule(final long date, final Action0 action, final long repeatInterval) {
+        checkState(!shutdown, "scheduler is shut down");
+
+        final Entry entry = new Entry(this, date, action, repeatInterval);
+        pendingEntries.add(entry);
+        return entry;
+    }
+
+    @Override
+    public Disposable scheduleAfterDate(final long date, final Action0 action) {
+        return schedule(date, action, 0);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * The same wheel entry is reinserted for every repetition. Repetitions whose dates have already passed when the
+     * entry fires are skipped, rather than run in a burst.
+     */
+    @Override
+    public Disposable scheduleAfterDate(final long date, final Action0 action, final long repeatInterval) {
+        checkArgument(repeatInterval > 0, "repeatInterval <= 0: %s", repeatInterval);
+        return schedule(date, action, repeatInterval);
+    }
+
+    /**
+     * Stops the ticker thread. Pending actions will never run, and no further actions may be scheduled.
+     */
+    public void shutdown() {
+        shutdown = true;
+        if (ticker != null) {
+            ticker.interrupt();
+        }
+    }
+
+    private void runTicker() {
+        while (!shutdown) {
+            final long nextTickDate = startDate + ((currentTick + 1) * tickDuration);
+            try {
+                for (long delay = nextTickDate - getCurrentDate(); delay > 0; delay = nextTickDate - getCurrentDate()) {
+                    Thread.sleep(delay);
+                }
+            } catch (InterruptedException e) {
+                return;
+            }
+            tick();
+        }
+    }
+
+    /**
+     * Advances the wheel by one tick, firing every entry that is then due. Called by the ticker thread, or else by a
+     * single thread that owns the wheel.
+     */
+    void tick() {
+        ++currentTick;
+        try {
+            removeDisposedEntries();
+            insertPendingEntries();
+            cascade();
+            expire();
+        } catch (RuntimeException e) {
+            // Keep ticking, so that one bad entry does not stop every other timer.
+            final Thread thread = Thread.currentThread();
+            thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+        }
+    }
+
+    private void removeDisposedEntries() {
+        for (Entry entry = disposedEntries.poll(); entry != null; entry = disposedEntries.poll()) {
+            unlink(entry);
+        }
+    }
+
+    private void insertPendingEntries() {
+        for (Entry entry = pendingEntries.poll(); entry != null; entry = pendingEntries.poll()) {
+            if (!entry.isDisposed()) {
+                entry.deadlineTick = getDeadlineTick(entry.date);
+                place(entry);
+            }
+        }
+    }
+
+    private long getDeadlineTick(final long date) {
+        final long elapsed = date - startDate;
+        return (elapsed <= 0) ? 0 : (((elapsed - 1) / tickDuration) + 1);
+    }
+
+    /**
+     * Moves the entries of any higher-level slot whose span begins at the current tick down the hierarchy.
+     */
+    private void cascade() {
+        for (int level = levels - 1; level > 0; --level) {
+            final int shift = wheelBits * level;
+            if ((currentTick & ((1L << shift) - 1)) == 0) {
+                final int slot = (int) ((currentTick >>> shift) & wheelMask);
+                Entry entry = wheels[level][slot];
+                wheels[level][slot] = null;
+                while (entry != null) {
+                    final Entry next = entry.next;
+                    entry.level = -1;
+                    entry.prev = null;
+                    entry.next = null;
+                    place(entry);
+                    entry = next;
+                }
+            }
+        }
+    }
+
+    private void expire() {
+        final int slot = (int) (currentTick & wheelMask);
+        Entry entry = wheels[0][slot];
+        wheels[0][slot] = null;
+        while (entry != null) {
+            final Entry next = entry.next;
+            entry.level = -1;
+            entry.prev = null;
+            entry.next = null;
+            fire(entry);
+            entry = next;
+        }
+    }
+
+    /**
+     * Hands the entry to the worker, and if it repeats, links it again for its next date after the current tick.
+     *
+     * Repetitions whose dates have already passed, because the first date was in the past or the ticker fell behind,
+     * are skipped rather than made up in a burst.
+     */
+    private void fire(final Entry entry) {
+        if (entry.isDisposed()) {
+            return;
+        }
+
+        try {
+            worker.schedule(entry);
+        } catch (RuntimeException e) {
+            final Thread thread = Thread.currentThread();
+            thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+        }
+
+        if (entry.repeatInterval > 0) {
+            entry.date += entry.repeatInterval;
+            final long currentTickDate = startDate + (currentTick * tickDuration);
+            if (entry.date <= currentTickDate) {
+                final long missed = ((currentTickDate - entry.date) / entry.repeatInterval) + 1;
+                entry.date += missed * entry.repeatInterval;
+            }
+            entry.deadlineTick = getDeadlineTick(entry.date);
+            link(entry);
+        }
+    }
+
+    /**
+     * Links the entry into the wheel, or fires it if already due.
+     */
+    private void place(final Entry entry) {
+        if (entry.deadlineTick <= currentTick) {
+            fire(entry);
+        } else {
+            link(entry);
+        }
+    }
+
+    /**
+     * Links the entry into the lowest level whose span covers its deadline, which must be after the current tick.
+     */
+    private void link(final Entry entry) {
+        final long delta = entry.deadlineTick - currentTick;
+        int level = 0;
+        while ((level < levels - 1) && (delta >= (1L << (wheelBits * (level + 1))))) {
+            ++level;
+        }
+
+        // An entry beyond the top level's span waits in the top-level slot that will be cascaded last.
+        final long deadlineTick = (delta < (1L << (wheelBits * levels)))
+                ? entry.deadlineTick
+                : (currentTick + (1L << (wheelBits * levels)) - 1);
+        final int slot = (int) ((deadlineTick >>> (wheelBits * level)) & wheelMask);
+
+        entry.level = level;
+        entry.slot = slot;
+        entry.prev = null;
+        entry.next = wheels[level][slot];
+        if (entry.next != null) {
+            entry.next.prev = entry;
+        }
+        wheels[level][slot] = entry;
+    }
+
+    private void unlink(final Entry entry) {
+        if (entry.level < 0) {
+            return;
+        }
+
+        if (entry.prev != null) {
+            entry.prev.next = entry.next;
+        } else {
+            wheels[entry.level][entry.slot] = entry.next;
+        }
+        if (entry.next != null) {
+            entry.next.prev = entry.prev;
+        }
+
+        entry.level = -1;
+        entry.prev = null;
+        entry.next = null;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("worker", worker)
+                .add("tickDuration", tickDuration)
+                .add("wheelSize", wheelMask + 1)
+                .add("levels", levels)
+                .toString();
+    }
+}
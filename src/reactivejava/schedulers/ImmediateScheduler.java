@@ -3,6 +3,8 @@ package reactivejava.schedulers;
 import reactivejava.disposables.Disposable;
 import rx.functions.Action0;
 
+import java.util.List;
+
 /**
  * A scheduler that performs all work synchronously.
  */
@@ -17,4 +19,12 @@ public final class ImmediateScheduler implements Scheduler {
         action.call();
         return null;
     }
+
+    @Override
+    public Disposable scheduleAll(List<? extends Action0> actions) {
+        for (Action0 action : actions) {
+            action.call();
+        }
+        return null;
+    }
 }
@@ -0,0 +1,282 @@
+package reactivejava.schedulers;
+
+import com.google.common.base.MoreObjects;
+import reactivejava.disposables.Disposable;
+import rx.functions.Action0;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * A {@link Scheduler} that delegates to another, recording how long each action waits to start, how long it runs, how
+ * many actions are waiting, and how many were rejected.
+ *
+ * Use {@link #instrument(Scheduler, String)} to instrument a scheduler only if the {@value #ENABLED_PROPERTY} system
+ * property is {@code true}. Otherwise it returns the scheduler itself, so that disabled instrumentation costs nothing.
+ */
+public final class InstrumentedScheduler implements Scheduler {
+    public static final String ENABLED_PROPERTY = "reactivejava.schedulers.instrumentation";
+
+    private static final boolean ENABLED = Boolean.getBoolean(ENABLED_PROPERTY);
+
+    // The histogram buckets exported to Prometheus, from about 1us to about 68s by powers of two.
+    private static final int MIN_EXPORTED_EXPONENT = 10;
+    private static final int MAX_EXPORTED_EXPONENT = 36;
+
+    /**
+     * A snapshot of the metrics recorded by an {@link InstrumentedScheduler}.
+     */
+    public static final class Snapshot {
+        public final String name;
+        public final LatencyHistogram.Snapshot waitNanos;
+        public final LatencyHistogram.Snapshot runNanos;
+        public final int queueDepth;
+        public final long rejectedCount;
+
+        private Snapshot(final String name,
+                         final LatencyHistogram.Snapshot waitNanos,
+                         final LatencyHistogram.Snapshot runNanos,
+                         final int queueDepth,
+                         final long rejectedCount) {
+            this.name = name;
+            this.waitNanos = waitNanos;
+            this.runNanos = runNanos;
+            this.queueDepth = queueDepth;
+            this.rejectedCount = rejectedCount;
+        }
+
+        /**
+         * Writes this snapshot in the Prometheus text exposition format.
+         */
+        public void writePrometheus(final Writer writer) throws IOException {
+            final String labels = "scheduler=\"" + escapeLabelValue(name) + "\"";
+
+            writeHistogram(writer, "reactivejava_scheduler_wait_seconds",
+                    "Time between an action being scheduled and starting to run.", labels, waitNanos);
+            writeHistogram(writer, "reactivejava_scheduler_run_seconds",
+                    "Time spent running an action.", labels, runNanos);
+
+            writer.write("# HELP reactivejava_scheduler_queue_depth Actions scheduled but not yet started.\n");
+            writer.write("# TYPE reactivejava_scheduler_queue_depth gauge\n");
+            writer.write("reactivejava_scheduler_queue_depth{" + labels + "} " + queueDepth + "\n");
+
+            writer.write("# HELP reactivejava_scheduler_rejected_total Actions the scheduler refused to accept.\n");
+            writer.write("# TYPE reactivejava_scheduler_rejected_total counter\n");
+            writer.write("reactivejava_scheduler_rejected_total{" + labels + "} " + rejectedCount + "\n");
+        }
+
+        private static void writeHistogram(final Writer writer,
+                                           final String metric,
+                                           final String help,
+                                           final String labels,
+                                           final LatencyHistogram.Snapshot histogram) throws IOException {
+            writer.write("# HELP " + metric + " " + help + "\n");
+            writer.write("# TYPE " + metric + " histogram\n");
+            for (int exponent = MIN_EXPORTED_EXPONENT; exponent <= MAX_EXPORTED_EXPONENT; ++exponent) {
+                final long bound = 1L << exponent;
+                writer.write(metric + "_bucket{" + labels + ",le=\"" + toSeconds(bound) + "\"} " +
+                        histogram.getCountAtOrBelow(bound - 1) + "\n");
+            }
+            writer.write(metric + "_bucket{" + labels + ",le=\"+Inf\"} " + histogram.getCount() + "\n");
+            writer.write(metric + "_sum{" + labels + "} " + toSeconds(histogram.getSum()) + "\n");
+            writer.write(metric + "_count{" + labels + "} " + histogram.getCount() + "\n");
+        }
+
+        private static String toSeconds(final long nanos) {
+            return Double.toString(nanos / 1e9);
+        }
+
+        private static String escapeLabelValue(final String value) {
+            return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+        }
+
+        @Override
+        public String toString() {
+            return MoreObjects.toStringHelper(this)
+                    .add("name", name)
+                    .add("waitNanos", waitNanos)
+                    .add("runNanos", runNanos)
+                    .add("queueDepth", queueDepth)
+                    .add("rejectedCount", rejectedCount)
+                    .toString();
+        }
+    }
+
+    private static final int PENDING = 0;
+    private static final int STARTED = 1;
+    private static final int DISPOSED = 2;
+
+    private static final AtomicIntegerFieldUpdater<InstrumentedAction> STATE =
+            AtomicIntegerFieldUpdater.newUpdater(InstrumentedAction.class, "state");
+
+    /**
+     * Wraps an action to record its timings, and is also the {@link Disposable} returned for it.
+     */
+    private final class InstrumentedAction implements Action0, Disposable {
+        private final Action0 action;
+        private final long scheduledNanos = System.nanoTime();
+        private volatile int state = PENDING;
+        private volatile Disposable disposable;
+
+        private InstrumentedAction(final Action0 action) {
+            this.action = checkNotNull(action);
+        }
+
+        @Override
+        public void call() {
+            if (!STATE.compareAndSet(this, PENDING, STARTED)) {
+                return;
+            }
+            queueDepth.decrementAndGet();
+
+            final long startNanos = System.nanoTime();
+            waitNanos.record(startNanos - scheduledNanos);
+            try {
+                action.call();
+            } finally {
+                runNanos.record(System.nanoTime() - startNanos);
+            }
+        }
+
+        @Override
+        public boolean isDisposed() {
+            return state == DISPOSED;
+        }
+
+        @Override
+        public void dispose() {
+            if (STATE.compareAndSet(this, PENDING, DISPOSED)) {
+                queueDepth.decrementAndGet();
+            }
+
+            final Disposable disposable = this.disposable;
+            if (disposable != null) {
+                disposable.dispose();
+            }
+        }
+    }
+
+    private final Scheduler scheduler;
+    private final String name;
+    private final LatencyHistogram waitNanos = new LatencyHistogram();
+    private final LatencyHistogram runNanos = new LatencyHistogram();
+    private final AtomicInteger queueDepth = new AtomicInteger();
+    private final AtomicLong rejectedCount = new AtomicLong();
+
+    /**
+     * Constructs an {@link InstrumentedScheduler} that delegates to the given scheduler, regardless of whether
+     * {@value #ENABLED_PROPERTY} is set.
+     */
+    public InstrumentedScheduler(final Scheduler scheduler, final String name) {
+        this.scheduler = checkNotNull(scheduler);
+        this.name = checkNotNull(name);
+    }
+
+    /**
+     * @return whether {@link #instrument(Scheduler, String)} instruments schedulers
+     */
+    public static boolean isEnabled() {
+        return ENABLED;
+    }
+
+    /**
+     * @return an {@link InstrumentedScheduler} wrapping the given scheduler if {@link #isEnabled()}, or else the given
+     * scheduler itself
+     */
+    public static Scheduler instrument(final Scheduler scheduler, final String name) {
+        return ENABLED ? new InstrumentedScheduler(scheduler, name) : scheduler;
+    }
+
+    /**
+     * Enqueues an action on the delegate scheduler.
+     *
+     * If the delegate throws, the action is counted as rejected and the exception is rethrown.
+     */
+    @Override
+    public Disposable schedule(final Action0 action) {
+        final InstrumentedAction instrumentedAction = new InstrumentedAction(action);
+        queueDepth.incrementAndGet();
+        try {
+            instrumentedAction.disposable = scheduler.schedule(instrumentedAction);
+        } catch (RuntimeException e) {
+            if (STATE.compareAndSet(instrumentedAction, PENDING, DISPOSED)) {
+                queueDepth.decrementAndGet();
+            }
+            rejectedCount.incrementAndGet();
+            throw e;
+        }
+        return instrumentedAction;
+    }
+
+    /**
+     * Enqueues the actions on the delegate scheduler as a single batch. If any action is {@code null}, none of them are
+     * enqueued.
+     *
+     * If the delegate throws, it may already have accepted some of the actions, and those must still run, so the
+     * exception is rethrown without changing the state of any action. The failed call counts once as rejected, and
+     * since accepted and refused actions cannot be told apart, the queue depth keeps counting all of them.
+     */
+    @Override
+    public Disposable scheduleAll(final List<? extends Action0> actions) {
+        // The last element is left for the delegate's disposable for the whole batch.
+        final Disposable[] disposables = new Disposable[actions.size() + 1];
+        final InstrumentedAction[] instrumentedActions = new InstrumentedAction[actions.size()];
+        for (int i = 0; i < instrumentedActions.length; ++i) {
+            instrumentedActions[i] = new InstrumentedAction(actions.get(i));
+            disposables[i] = instrumentedActions[i];
+        }
+
+        queueDepth.addAndGet(instrumentedActions.length);
+        try {
+            disposables[instrumentedActions.length] = scheduler.scheduleAll(Arrays.asList(instrumentedActions));
+        } catch (RuntimeException e) {
+            rejectedCount.incrementAndGet();
+            throw e;
+        }
+        return new BatchDisposable(disposables);
+    }
+
+    /**
+     * @return the metrics recorded so far
+     */
+    public Snapshot getSnapshot() {
+        return new Snapshot(name, waitNanos.getSnapshot(), runNanos.getSnapshot(), queueDepth.get(),
+                rejectedCount.get());
+    }
+
+    /**
+     * Writes the metrics recorded so far to the given file in the Prometheus text exposition format, replacing it
+     * atomically so that a concurrent reader never sees a partial file.
+     */
+    public void writePrometheus(final Path path) throws IOException {
+        final Path parent = path.toAbsolutePath().getParent();
+        final Path tempPath = Files.createTempFile(parent, path.getFileName().toString(), ".tmp");
+        try {
+            try (Writer writer = Files.newBufferedWriter(tempPath, StandardCharsets.UTF_8)) {
+                getSnapshot().writePrometheus(writer);
+            }
+            Files.move(tempPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tempPath);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("scheduler", scheduler)
+                .add("name", name)
+                .toString();
+    }
+}
@@ -0,0 +1,163 @@
+package reactivejava.schedulers;
+
+import com.google.common.base.MoreObjects;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * A histogram of non-negative durations in nanoseconds, which any number of threads can record into without locking.
+ *
+ * Like an HDR histogram, buckets are log-linear: each power of two is divided into {@value #SUB_BUCKET_COUNT} equal
+ * sub-buckets, so any recorded value is accurate to within about 6%.
+ */
+public final class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKET_COUNT = (64 - SUB_BUCKET_BITS + 1) * SUB_BUCKET_COUNT;
+
+    /**
+     * An immutable copy of a {@link LatencyHistogram} at some point in time.
+     */
+    public static final class Snapshot {
+        private final long[] counts;
+        private final long count;
+        private final long sum;
+        private final long max;
+
+        private Snapshot(final long[] counts, final long count, final long sum, final long max) {
+            this.counts = counts;
+            this.count = count;
+            this.sum = sum;
+            this.max = max;
+        }
+
+        /**
+         * @return the number of recorded values
+         */
+        public long getCount() {
+            return count;
+        }
+
+        /**
+         * @return the sum of all recorded values
+         */
+        public long getSum() {
+            return sum;
+        }
+
+        /**
+         * @return the largest recorded value
+         */
+        public long getMax() {
+            return max;
+        }
+
+        /**
+         * @return the mean recorded value, or {@code 0} if no values have been recorded
+         */
+        public long getMean() {
+            return (count == 0) ? 0 : (sum / count);
+        }
+
+        /**
+         * @return an upper bound on the value at the given percentile, which must be between 0 and 100
+         */
+        public long getValueAtPercentile(final double percentile) {
+            checkArgument((percentile >= 0) && (percentile <= 100), "percentile=%s", percentile);
+
+            final long targetCount = Math.max(1, (long) Math.ceil((percentile / 100) * count));
+            long cumulativeCount = 0;
+            for (int i = 0; i < counts.length; ++i) {
+                cumulativeCount += counts[i];
+                if (cumulativeCount >= targetCount) {
+                    return Math.min(getUpperBound(i), max);
+                }
+            }
+            return max;
+        }
+
+        /**
+         * @return the number of recorded values less than or equal to the given value, rounded to a bucket boundary
+         */
+        public long getCountAtOrBelow(final long value) {
+            final int lastIndex = getIndex(value);
+            long cumulativeCount = 0;
+            for (int i = 0; i <= lastIndex; ++i) {
+                cumulativeCount += counts[i];
+            }
+            return cumulativeCount;
+        }
+
+        @Override
+        public String toString() {
+            return MoreObjects.toStringHelper(this)
+                    .add("count", count)
+                    .add("mean", getMean())
+                    .add("p50", getValueAtPercentile(50))
+                    .add("p99", getValueAtPercentile(99))
+                    .add("max", max)
+                    .toString();
+        }
+    }
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+    private final AtomicLong sum = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    private static int getIndex(final long value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return (int) Math.max(0, value);
+        }
+
+        // The exponent is the position of the highest set bit, and the sub-bucket is the bits just below it.
+        final int exponent = 63 - Long.numberOfLeadingZeros(value);
+        final int shift = exponent - SUB_BUCKET_BITS;
+        final int subBucket = (int) ((value >>> shift) & (SUB_BUCKET_COUNT - 1));
+        return ((shift + 1) << SUB_BUCKET_BITS) + subBucket;
+    }
+
+    private static long getUpperBound(final int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+
+        final int shift = (index >>> SUB_BUCKET_BITS) - 1;
+        final long subBucket = index & (SUB_BUCKET_COUNT - 1);
+        return ((SUB_BUCKET_COUNT + subBucket + 1) << shift) - 1;
+    }
+
+    /**
+     * Records a value. Negative values are recorded as {@code 0}.
+     */
+    public void record(final long value) {
+        counts.incrementAndGet(getIndex(value));
+        sum.addAndGet(Math.max(0, value));
+
+        for (long prevMax = max.get(); value > prevMax; prevMax = max.get()) {
+            if (max.compareAndSet(prevMax, value)) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * @return a copy of the recorded values. Values recorded concurrently with this call may or may not be included.
+     */
+    public Snapshot getSnapshot() {
+        final long[] countsCopy = new long[BUCKET_COUNT];
+        long count = 0;
+        for (int i = 0; i < BUCKET_COUNT; ++i) {
+            countsCopy[i] = counts.get(i);
+            count += countsCopy[i];
+        }
+        return new Snapshot(countsCopy, count, sum.get(), max.get());
+    }
+
+    @Override
+    public String toString() {
+        return getSnapshot().toString();
+    }
+}
@@ -0,0 +1,480 @@
+package reactivejava.schedulers;
+
+import com.google.common.base.MoreObjects;
+import reactivejava.disposables.Disposable;
+import rx.functions.Action0;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+
+/**
+ * A {@link DateScheduler} that runs actions serially on a single thread, choosing among several priority lanes.
+ *
+ * Lane 0 has the highest priority. Within a lane, actions run in order of their deadline (earliest first), and then in
+ * the order they were scheduled. To prevent starvation, the action at the head of a lane is promoted by one lane for
+ * every {@code agingInterval} it has waited.
+ *
+ * Each lane has its own lock, so scheduling into one lane never contends with scheduling into another.
+ *
+ * Dates and deadlines are measured in milliseconds, as returned by {@link System#currentTimeMillis()}.
+ */
+public final class PriorityScheduler implements DateScheduler {
+    /**
+     * A snapshot of how long actions in one lane waited between being enqueued and starting to run, and how long they
+     * then ran. The two histograms are copied one after the other, so an action that finishes meanwhile may be counted
+     * in the first but not yet in the second.
+     */
+    public static final class LaneMetrics {
+        public final LatencyHistogram.Snapshot waitNanos;
+        public final LatencyHistogram.Snapshot runNanos;
+
+        private LaneMetrics(final LatencyHistogram.Snapshot waitNanos, final LatencyHistogram.Snapshot runNanos) {
+            this.waitNanos = waitNanos;
+            this.runNanos = runNanos;
+        }
+
+        @Override
+        public String toString() {
+            return MoreObjects.toStringHelper(this)
+                    .add("waitNanos", waitNanos)
+                    .add("runNanos", runNanos)
+                    .toString();
+        }
+    }
+
+    /**
+     * An action in a lane, which is also the {@link Disposable} for it.
+     *
+     * A delayed entry is first handed to the timer as a {@link Runnable}, which enqueues it into its lane when due. A
+     * repeating entry is reused for every repetition, and is not enqueued again while a previous repetition is pending.
+     */
+    private final class Entry implements Runnable, Disposable {
+        private final int lane;
+        private final long repeatInterval;
+        private volatile Action0 action;
+        private volatile int queued;
+        private volatile ScheduledFuture<?> future;
+
+        // Guarded by the lane's lock while queued.
+        private long deadline;
+        private long sequence;
+        private long enqueueNanos;
+
+        // Only accessed by the timer thread.
+        private long nextDeadline;
+
+        private Entry(final int lane, final long deadline, final Action0 action, final long repeatInterval) {
+            this.lane = lane;
+            this.nextDeadline = deadline;
+            this.action = checkNotNull(action);
+            this.repeatInterval = repeatInterval;
+        }
+
+        @Override
+        public void run() {
+            final long deadline = nextDeadline;
+            nextDeadline += repeatInterval;
+            enqueue(this, deadline);
+        }
+
+        /**
+         * Publishes the timer's future for this entry, cancelling it if this entry was disposed before it could be
+         * published.
+         */
+        private void setFuture(final ScheduledFuture<?> future) {
+            this.future = future;
+            if (action == null) {
+                future.cancel(false);
+            }
+        }
+
+        @Override
+        public boolean isDisposed() {
+            return action == null;
+        }
+
+        /**
+         * Cancels this entry, and removes it from its lane if it is waiting there, which takes time linear in the
+         * size of the lane.
+         */
+        @Override
+        public void dispose() {
+            if (action == null) {
+                return;
+            }
+            action = null;
+
+            final ScheduledFuture<?> future = this.future;
+            if (future != null) {
+                future.cancel(false);
+            }
+            if (queued != 0) {
+                remove(this);
+            }
+        }
+    }
+
+    private static final AtomicIntegerFieldUpdater<Entry> QUEUED =
+            AtomicIntegerFieldUpdater.newUpdater(Entry.class, "queued");
+
+    private static final Comparator<Entry> EARLIEST_DEADLINE_FIRST = new Comparator<Entry>() {
+        @Override
+        public int compare(final Entry lhs, final Entry rhs) {
+            if (lhs.deadline != rhs.deadline) {
+                return (lhs.deadline < rhs.deadline) ? -1 : 1;
+            } else {
+                return Long.compare(lhs.sequence, rhs.sequence);
+            }
+        }
+    };
+
+    private static final class Lane {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final PriorityQueue<Entry> queue = new PriorityQueue<>(16, EARLIEST_DEADLINE_FIRST);
+        private long nextSequence;
+        private volatile int size;
+        // Published so that the worker can compare the heads of lanes without locking them. If the head is dequeued
+        // meanwhile, the comparison may use stale values, but the worker still polls the true head under the lock.
+        private volatile Entry head;
+
+        private final LatencyHistogram waitNanos = new LatencyHistogram();
+        private final LatencyHistogram runNanos = new LatencyHistogram();
+
+        /**
+         * Publishes the size and head of the queue after it changes. Must hold the lock.
+         */
+        private void onQueueChanged() {
+            size = queue.size();
+            head = queue.peek();
+        }
+    }
+
+    private final Lane[] lanes;
+    private final int defaultPriority;
+    private final long agingIntervalNanos;
+    private final ScheduledThreadPoolExecutor timer;
+    private final Thread worker;
+
+    private volatile boolean parked;
+    private volatile boolean shutdown;
+
+    /**
+     * Constructs a {@link PriorityScheduler}.
+     *
+     * @param laneCount the number of priority lanes
+     * @param defaultPriority the lane used by methods that do not take a priority
+     * @param agingInterval how long, in milliseconds, the head of a lane must wait to be promoted by one lane
+     */
+    public PriorityScheduler(final int laneCount, final int defaultPriority, final long agingInterval) {
+        checkArgument(laneCount > 0, "laneCount <= 0: %s", laneCount);
+        checkArgument((defaultPriority >= 0) && (defaultPriority < laneCount),
+                "defaultPriority=%s, laneCount=%s", defaultPriority, laneCount);
+        checkArgument(agingInterval > 0, "agingInterval <= 0: %s", agingInterval);
+
+        this.lanes = new Lane[laneCount];
+        for (int i = 0; i < laneCount; ++i) {
+            lanes[i] = new Lane();
+        }
+        this.defaultPriority = defaultPriority;
+        this.agingIntervalNanos = TimeUnit.MILLISECONDS.toNanos(agingInterval);
+
+        this.timer = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+            @Override
+            public Thread newThread(final Runnable runnable) {
+                final Thread thread = new Thread(runnable, "PriorityScheduler-timer");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        this.timer.setRemoveOnCancelPolicy(true);
+
+        this.worker = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                runWorker();
+            }
+        }, "PriorityScheduler");
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    @Override
+    public long getCurrentDate() {
+        return System.currentTimeMillis();
+    }
+
+    private void checkPriority(final int priority) {
+        checkArgument((priority >= 0) && (priority < lanes.length),
+                "priority=%s, laneCount=%s", priority, lanes.length);
+    }
+
+    private void enqueue(final Entry entry, final long deadline) {
+        if (entry.isDisposed() || !QUEUED.compareAndSet(entry, 0, 1)) {
+            return;
+        }
+
+        final Lane lane = lanes[entry.lane];
+        lane.lock.lock();
+        try {
+            // Recheck under the lock, so that a concurrent dispose() either finds this entry or is seen here.
+            if (entry.isDisposed()) {
+                QUEUED.set(entry, 0);
+                return;
+            }
+            entry.deadline = deadline;
+            entry.sequence = lane.nextSequence++;
+            entry.enqueueNanos = System.nanoTime();
+            lane.queue.add(entry);
+            lane.onQueueChanged();
+        } finally {
+            lane.lock.unlock();
+        }
+
+        if (parked) {
+            LockSupport.unpark(worker);
+        }
+    }
+
+    private void remove(final Entry entry) {
+        final Lane lane = lanes[entry.lane];
+        lane.lock.lock();
+        try {
+            if (lane.queue.remove(entry)) {
+                lane.onQueueChanged();
+                QUEUED.set(entry, 0);
+            }
+        } finally {
+            lane.lock.unlock();
+        }
+    }
+
+    /**
+     * Enqueues an action in the given lane, to run as soon as possible and ideally before the given deadline.
+     */
+    public Disposable schedule(final int priority, final long deadline, final Action0 action) {
+        checkState(!shutdown, "scheduler is shut down");
+        checkPriority(priority);
+
+        final Entry entry = new Entry(priority, deadline, action, 0);
+        enqueue(entry, deadline);
+        return entry;
+    }
+
+    /**
+     * Enqueues an action in the default lane, with the current date as its deadline.
+     */
+    @Override
+    public Disposable schedule(final Action0 action) {
+        return schedule(defaultPriority, getCurrentDate(), action);
+    }
+
+    /**
+     * Enqueues the actions in the default lane under a single acquisition of its lock, with the current date as their
+     * deadline. If any action is {@code null}, none of them are enqueued.
+     */
+    @Override
+    public Disposable scheduleAll(final List<? extends Action0> actions) {
+        checkState(!shutdown, "scheduler is shut down");
+
+        final long deadline = getCurrentDate();
+        final Entry[] entries = new Entry[actions.size()];
+        for (int i = 0; i < entries.length; ++i) {
+            entries[i] = new Entry(defaultPriority, deadline, actions.get(i), 0);
+        }
+
+        final Lane lane = lanes[defaultPriority];
+        lane.lock.lock();
+        try {
+            final long enqueueNanos = System.nanoTime();
+            for (final Entry entry : entries) {
+                entry.queued = 1;
+                entry.deadline = deadline;
+                entry.sequence = lane.nextSequence++;
+                entry.enqueueNanos = enqueueNanos;
+                lane.queue.add(entry);
+            }
+            lane.onQueueChanged();
+        } finally {
+            lane.lock.unlock();
+        }
+
+        if (parked) {
+            LockSupport.unpark(worker);
+        }
+        return new BatchDisposable(entries);
+    }
+
+    private Disposable scheduleOnTimer(final int priority,
+                                       final long date,
+                                       final Action0 action,
+                                       final long repeatInterval) {
+        checkState(!shutdown, "scheduler is shut down");
+        checkPriority(priority);
+
+        final Entry entry = new Entry(priority, date, action, repeatInterval);
+        final long delay = Math.max(0, date - getCurrentDate());
+        entry.setFuture((repeatInterval > 0)
+                ? timer.scheduleAtFixedRate(entry, delay, repeatInterval, TimeUnit.MILLISECONDS)
+                : timer.schedule(entry, delay, TimeUnit.MILLISECONDS));
+        return entry;
+    }
+
+    /**
+     * Enqueues an action in the given lane at the given date, with that date as its deadline.
+     */
+    public Disposable scheduleAfterDate(final int priority, final long date, final Action0 action) {
+        return scheduleOnTimer(priority, date, action, 0);
+    }
+
+    /**
+     * Enqueues a recurring action in the given lane at the given interval, beginning at the given date. Each
+     * repetition's deadline is the date at which it was due.
+     */
+    public Disposable scheduleAfterDate(final int priority,
+                                        final long date,
+                                        final Action0 action,
+                                        final long repeatInterval) {
+        checkArgument(repeatInterval > 0, "repeatInterval <= 0: %s", repeatInterval);
+        return scheduleOnTimer(priority, date, action, repeatInterval);
+    }
+
+    @Override
+    public Disposable scheduleAfterDate(final long date, final Action0 action) {
+        return scheduleOnTimer(defaultPriority, date, action, 0);
+    }
+
+    @Override
+    public Disposable scheduleAfterDate(final long date, final Action0 action, final long repeatInterval) {
+        return scheduleAfterDate(defaultPriority, date, action, repeatInterval);
+    }
+
+    /**
+     * @return a snapshot of the wait times of actions that have run in the given lane
+     */
+    public LaneMetrics getLaneMetrics(final int priority) {
+        checkPriority(priority);
+
+        final Lane lane = lanes[priority];
+        return new LaneMetrics(lane.waitNanos.getSnapshot(), lane.runNanos.getSnapshot());
+    }
+
+    /**
+     * @return the number of actions waiting in the given lane, not counting any that have been disposed
+     */
+    public int getLaneSize(final int priority) {
+        checkPriority(priority);
+        return lanes[priority].size;
+    }
+
+    /**
+     * Stops the worker and timer threads. Actions that have not yet begun will never run, and no further actions may be
+     * scheduled.
+     */
+    public void shutdown() {
+        shutdown = true;
+        timer.shutdownNow();
+        LockSupport.unpark(worker);
+    }
+
+    private boolean isEmpty() {
+        for (Lane lane : lanes) {
+            if (lane.size > 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Chooses the lane whose head has the best effective priority after aging, breaking ties by deadline. This reads
+     * the published heads of the lanes, and locks none of them.
+     */
+    private Lane selectLane() {
+        final long nowNanos = System.nanoTime();
+
+        Lane selectedLane = null;
+        long selectedPriority = Long.MAX_VALUE;
+        long selectedDeadline = Long.MAX_VALUE;
+        for (int i = 0; i < lanes.length; ++i) {
+            final Entry head = lanes[i].head;
+            if (head == null) {
+                continue;
+            }
+            final long enqueueNanos = head.enqueueNanos;
+            final long deadline = head.deadline;
+
+            final long priority = Math.max(0, i - ((nowNanos - enqueueNanos) / agingIntervalNanos));
+            if ((priority < selectedPriority) || ((priority == selectedPriority) && (deadline < selectedDeadline))) {
+                selectedLane = lanes[i];
+                selectedPriority = priority;
+                selectedDeadline = deadline;
+            }
+        }
+        return selectedLane;
+    }
+
+    private void runWorker() {
+        while (!shutdown) {
+            final Lane lane = selectLane();
+            if (lane == null) {
+                parked = true;
+                // Recheck after publishing the flag, so that a concurrent enqueue cannot be missed.
+                if (isEmpty() && !shutdown) {
+                    LockSupport.park(this);
+                }
+                parked = false;
+                continue;
+            }
+
+            final Action0 action;
+            final long startNanos;
+            lane.lock.lock();
+            try {
+                final Entry entry = lane.queue.poll();
+                if (entry == null) {
+                    continue;
+                }
+                lane.onQueueChanged();
+
+                QUEUED.set(entry, 0);
+                action = entry.action;
+                if (action == null) {
+                    continue;
+                }
+
+                startNanos = System.nanoTime();
+                lane.waitNanos.record(startNanos - entry.enqueueNanos);
+            } finally {
+                lane.lock.unlock();
+            }
+
+            try {
+                action.call();
+            } catch (Throwable t) {
+                worker.getUncaughtExceptionHandler().uncaughtException(worker, t);
+            } finally {
+                lane.runNanos.record(System.nanoTime() - startNanos);
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("laneCount", lanes.length)
+                .add("defaultPriority", defaultPriority)
+                .toString();
+    }
+}
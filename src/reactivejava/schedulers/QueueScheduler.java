@@ -0,0 +1,180 @@
+package reactivejava.schedulers;
+
+import com.google.common.base.MoreObjects;
+import reactivejava.disposables.Disposable;
+import rx.functions.Action0;
+
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * A scheduler that runs actions one at a time, in the order they were scheduled, on a shared {@link Executor}.
+ *
+ * No thread is dedicated to a {@link QueueScheduler}: whenever actions are pending, a single drain is submitted to the
+ * executor. To be fair to other schedulers sharing that executor, a drain runs at most {@code maxBatchSize} actions
+ * before resubmitting itself.
+ */
+public final class QueueScheduler implements Scheduler {
+    public static final int DEFAULT_MAX_BATCH_SIZE = 64;
+
+    /**
+     * A node in the queue, which is also the {@link Disposable} for its action.
+     */
+    private static final class Node implements Disposable {
+        private volatile Action0 action;
+        private volatile Node next;
+
+        private Node(final Action0 action) {
+            this.action = action;
+        }
+
+        @Override
+        public boolean isDisposed() {
+            return action == null;
+        }
+
+        @Override
+        public void dispose() {
+            action = null;
+        }
+    }
+
+    private final Executor executor;
+    private final int maxBatchSize;
+
+    // A multiple-producer, single-consumer linked queue: producers swap themselves in at the tail, and the single
+    // drain consumes from the head, which is always a consumed (or stub) node.
+    private final AtomicReference<Node> tail;
+    private Node head;
+
+    private final AtomicBoolean draining = new AtomicBoolean();
+    private final Runnable drain = new Runnable() {
+        @Override
+        public void run() {
+            drain();
+        }
+    };
+
+    /**
+     * Constructs a {@link QueueScheduler} that drains on the given executor, using {@link #DEFAULT_MAX_BATCH_SIZE}.
+     */
+    public QueueScheduler(final Executor executor) {
+        this(executor, DEFAULT_MAX_BATCH_SIZE);
+    }
+
+    /**
+     * Constructs a {@link QueueScheduler} that drains on the given executor, running at most {@code maxBatchSize}
+     * actions per drain.
+     */
+    public QueueScheduler(final Executor executor, final int maxBatchSize) {
+        checkArgument(maxBatchSize > 0, "maxBatchSize <= 0: %s", maxBatchSize);
+        this.executor = checkNotNull(executor);
+        this.maxBatchSize = maxBatchSize;
+
+        final Node stub = new Node(null);
+        this.head = stub;
+        this.tail = new AtomicReference<>(stub);
+    }
+
+    private void offer(final Node node) {
+        offer(node, node);
+    }
+
+    /**
+     * Appends the already-linked chain of nodes from {@code first} to {@code last} with a single swap of the tail.
+     */
+    private void offer(final Node first, final Node last) {
+        final Node prevTail = tail.getAndSet(last);
+        prevTail.next = first;
+    }
+
+    private Node poll() {
+        final Node next = head.next;
+        if (next != null) {
+            head = next;
+        }
+        return next;
+    }
+
+    /**
+     * Submits a drain if none is running. If the executor throws, the actions stay queued and the exception is
+     * rethrown, and the next call tries to submit the drain again.
+     */
+    private void scheduleDrain() {
+        if (draining.compareAndSet(false, true)) {
+            try {
+                executor.execute(drain);
+            } catch (RuntimeException e) {
+                draining.set(false);
+                throw e;
+            }
+        }
+    }
+
+    private void drain() {
+        try {
+            for (int i = 0; i < maxBatchSize; ) {
+                final Node node = poll();
+                if (node == null) {
+                    break;
+                }
+
+                final Action0 action = node.action;
+                if (action != null) {
+                    node.action = null;
+                    ++i;
+                    action.call();
+                }
+            }
+        } finally {
+            draining.set(false);
+            // Either an action was enqueued after the last poll, or this drain yielded. Its producer may have seen
+            // this drain as still running, so resubmit on its behalf.
+            if (head.next != null) {
+                scheduleDrain();
+            }
+        }
+    }
+
+    @Override
+    public Disposable schedule(final Action0 action) {
+        final Node node = new Node(checkNotNull(action));
+        offer(node);
+        scheduleDrain();
+        return node;
+    }
+
+    /**
+     * Enqueues the actions as a single chain, and submits at most one drain for the whole batch.
+     */
+    @Override
+    public Disposable scheduleAll(final List<? extends Action0> actions) {
+        final Node[] nodes = new Node[actions.size()];
+        if (nodes.length == 0) {
+            return new BatchDisposable(nodes);
+        }
+
+        for (int i = 0; i < nodes.length; ++i) {
+            nodes[i] = new Node(checkNotNull(actions.get(i)));
+            if (i > 0) {
+                nodes[i - 1].next = nodes[i];
+            }
+        }
+        offer(nodes[0], nodes[nodes.length - 1]);
+        scheduleDrain();
+        return new BatchDisposable(nodes);
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("executor", executor)
+                .add("maxBatchSize", maxBatchSize)
+                .toString();
+    }
+}
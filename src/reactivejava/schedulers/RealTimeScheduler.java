@@ -0,0 +1,158 @@
+package reactivejava.schedulers;
+
+import com.google.common.base.MoreObjects;
+import reactivejava.disposables.Disposable;
+import rx.functions.Action0;
+
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * A {@link DateScheduler} that runs actions on its own threads, in real time.
+ *
+ * Dates are measured in milliseconds. {@link #getCurrentDate()} is anchored to {@link System#currentTimeMillis()} when
+ * the scheduler is constructed, but thereafter advances with {@link System#nanoTime()}, so it never jumps when the
+ * wall clock is adjusted.
+ *
+ * Each repetition of a recurring action is due at {@code date + n * repeatInterval}, regardless of how long earlier
+ * repetitions took to run, and every repetition reuses the same queued task.
+ *
+ * An exception thrown by an action is passed to the uncaught exception handler of the thread that ran it, rather than
+ * captured by the executor. A recurring action that throws keeps repeating until it is disposed.
+ */
+public final class RealTimeScheduler implements DateScheduler {
+    /**
+     * An action queued on the executor, which is also the {@link Disposable} for it.
+     */
+    private static final class Task implements Runnable, Disposable {
+        private final Action0 action;
+        private volatile ScheduledFuture<?> future;
+        private volatile boolean disposed;
+
+        private Task(final Action0 action) {
+            this.action = checkNotNull(action);
+        }
+
+        @Override
+        public void run() {
+            if (disposed) {
+                return;
+            }
+            try {
+                action.call();
+            } catch (Throwable t) {
+                // The executor would otherwise capture this in the future, and cancel any further repetitions.
+                final Thread thread = Thread.currentThread();
+                thread.getUncaughtExceptionHandler().uncaughtException(thread, t);
+            }
+        }
+
+        /**
+         * Publishes the future for this task, cancelling it if this task was disposed before it could be published.
+         */
+        private void setFuture(final ScheduledFuture<?> future) {
+            this.future = future;
+            if (disposed) {
+                future.cancel(false);
+            }
+        }
+
+        @Override
+        public boolean isDisposed() {
+            return disposed;
+        }
+
+        @Override
+        public void dispose() {
+            disposed = true;
+
+            final ScheduledFuture<?> future = this.future;
+            if (future != null) {
+                future.cancel(false);
+            }
+        }
+    }
+
+    private final ScheduledThreadPoolExecutor executor;
+    private final long originDate;
+    private final long originNanos;
+
+    /**
+     * Constructs a {@link RealTimeScheduler} that runs all actions serially on a single thread.
+     */
+    public RealTimeScheduler() {
+        this(1);
+    }
+
+    /**
+     * Constructs a {@link RealTimeScheduler} that runs actions on the given number of threads.
+     */
+    public RealTimeScheduler(final int threadCount) {
+        checkArgument(threadCount > 0, "threadCount <= 0: %s", threadCount);
+
+        this.executor = new ScheduledThreadPoolExecutor(threadCount, new ThreadFactory() {
+            @Override
+            public Thread newThread(final Runnable runnable) {
+                final Thread thread = new Thread(runnable, "RealTimeScheduler");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        this.executor.setRemoveOnCancelPolicy(true);
+
+        this.originDate = System.currentTimeMillis();
+        this.originNanos = System.nanoTime();
+    }
+
+    @Override
+    public long getCurrentDate() {
+        return originDate + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - originNanos);
+    }
+
+    private long getDelay(final long date) {
+        return Math.max(0, date - getCurrentDate());
+    }
+
+    @Override
+    public Disposable schedule(final Action0 action) {
+        final Task task = new Task(action);
+        task.setFuture(executor.schedule(task, 0, TimeUnit.MILLISECONDS));
+        return task;
+    }
+
+    @Override
+    public Disposable scheduleAfterDate(final long date, final Action0 action) {
+        final Task task = new Task(action);
+        task.setFuture(executor.schedule(task, getDelay(date), TimeUnit.MILLISECONDS));
+        return task;
+    }
+
+    @Override
+    public Disposable scheduleAfterDate(final long date, final Action0 action, final long repeatInterval) {
+        checkArgument(repeatInterval > 0, "repeatInterval <= 0: %s", repeatInterval);
+
+        final Task task = new Task(action);
+        task.setFuture(executor.scheduleAtFixedRate(task, getDelay(date), repeatInterval, TimeUnit.MILLISECONDS));
+        return task;
+    }
+
+    /**
+     * Stops accepting new actions, and cancels any that have not yet begun.
+     */
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("threadCount", executor.getCorePoolSize())
+                .add("queuedActions", executor.getQueue().size())
+                .toString();
+    }
+}
@@ -3,6 +3,8 @@ package reactivejava.schedulers;
 import reactivejava.disposables.Disposable;
 import rx.functions.Action0;
 
+import java.util.List;
+
 /**
  * Represents a serial queue of work items.
  */
@@ -15,4 +17,20 @@ public interface Scheduler {
      * Optionally returns a disposable that can be used to cancel the work before it begins.
      */
     Disposable schedule(Action0 action);
+
+    /**
+     * Enqueues the given actions on the scheduler, in order.
+     *
+     * Implementations may enqueue the whole batch at once, which is cheaper than calling {@link #schedule(Action0)}
+     * for each action. By default, this simply calls {@link #schedule(Action0)} for each action.
+     *
+     * Optionally returns a disposable that can be used to cancel every action in the batch that has not yet begun.
+     */
+    default Disposable scheduleAll(final List<? extends Action0> actions) {
+        final Disposable[] disposables = new Disposable[actions.size()];
+        for (int i = 0; i < disposables.length; ++i) {
+            disposables[i] = schedule(actions.get(i));
+        }
+        return new BatchDisposable(disposables);
+    }
 }
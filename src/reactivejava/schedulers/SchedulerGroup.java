@@ -0,0 +1,244 @@
+package reactivejava.schedulers;
+
+import com.google.common.base.MoreObjects;
+import reactivejava.disposables.Disposable;
+import rx.functions.Action0;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+
+/**
+ * A fixed group of single-threaded event loops, each of which is a {@link Scheduler}.
+ *
+ * {@link #forKey(Object)} always routes equal keys to the same loop, so all work for one key runs serially on one
+ * thread. State that is keyed the same way can therefore be confined to its loop and accessed without synchronization.
+ */
+public final class SchedulerGroup {
+    /**
+     * How an event loop waits when it has no work.
+     */
+    public enum IdleStrategy {
+        /**
+         * Spins on the CPU. This has the lowest latency, but occupies a core even when idle.
+         */
+        BUSY_SPIN,
+
+        /**
+         * Yields the CPU to other threads between checks for work.
+         */
+        YIELD,
+
+        /**
+         * Parks the thread until work is scheduled. This uses no CPU when idle, at the cost of a wakeup per burst.
+         */
+        PARK
+    }
+
+    /**
+     * A queued action, which is also the {@link Disposable} for it.
+     */
+    private static final class QueuedAction implements Disposable {
+        private volatile Action0 action;
+
+        private QueuedAction(final Action0 action) {
+            this.action = action;
+        }
+
+        @Override
+        public boolean isDisposed() {
+            return action == null;
+        }
+
+        @Override
+        public void dispose() {
+            action = null;
+        }
+    }
+
+    private static final class EventLoop implements Scheduler, Runnable {
+        private final IdleStrategy idleStrategy;
+        private final Queue<QueuedAction> queue = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger queueDepth = new AtomicInteger();
+        private final Thread thread;
+
+        private volatile boolean parked;
+        private volatile boolean shutdown;
+
+        private EventLoop(final IdleStrategy idleStrategy, final String name) {
+            this.idleStrategy = idleStrategy;
+            this.thread = new Thread(this, name);
+            this.thread.setDaemon(true);
+        }
+
+        @Override
+        public Disposable schedule(final Action0 action) {
+            checkState(!shutdown, "scheduler is shut down");
+
+            final QueuedAction queuedAction = new QueuedAction(checkNotNull(action));
+            queue.add(queuedAction);
+            queueDepth.incrementAndGet();
+            if (parked) {
+                LockSupport.unpark(thread);
+            }
+            return queuedAction;
+        }
+
+        /**
+         * Enqueues the actions with a single append to the queue, and wakes the loop at most once.
+         */
+        @Override
+        public Disposable scheduleAll(final List<? extends Action0> actions) {
+            checkState(!shutdown, "scheduler is shut down");
+
+            final QueuedAction[] queuedActions = new QueuedAction[actions.size()];
+            for (int i = 0; i < queuedActions.length; ++i) {
+                queuedActions[i] = new QueuedAction(checkNotNull(actions.get(i)));
+            }
+            queue.addAll(Arrays.asList(queuedActions));
+            queueDepth.addAndGet(queuedActions.length);
+            if (parked) {
+                LockSupport.unpark(thread);
+            }
+            return new BatchDisposable(queuedActions);
+        }
+
+        @Override
+        public void run() {
+            while (!shutdown) {
+                final QueuedAction queuedAction = queue.poll();
+                if (queuedAction == null) {
+                    idle();
+                    continue;
+                }
+
+                queueDepth.decrementAndGet();
+                final Action0 action = queuedAction.action;
+                if (action != null) {
+                    queuedAction.action = null;
+                    try {
+                        action.call();
+                    } catch (Throwable t) {
+                        // Keep the loop alive, since other keys are routed to it.
+                        thread.getUncaughtExceptionHandler().uncaughtException(thread, t);
+                    }
+                }
+            }
+        }
+
+        private void idle() {
+            switch (idleStrategy) {
+                case BUSY_SPIN:
+                    Thread.onSpinWait();
+                    break;
+                case YIELD:
+                    Thread.yield();
+                    break;
+                case PARK:
+                    parked = true;
+                    // Recheck after publishing the flag, so that a concurrent schedule() cannot be missed.
+                    if (queue.isEmpty() && !shutdown) {
+                        LockSupport.park(this);
+                    }
+                    parked = false;
+                    break;
+                default:
+                    throw new IllegalStateException("Unrecognized idleStrategy: " + idleStrategy);
+            }
+        }
+
+        private void shutdown() {
+            shutdown = true;
+            LockSupport.unpark(thread);
+        }
+
+        @Override
+        public String toString() {
+            return MoreObjects.toStringHelper(this)
+                    .add("thread", thread.getName())
+                    .add("queueDepth", queueDepth.get())
+                    .toString();
+        }
+    }
+
+    private final EventLoop[] loops;
+    private final IdleStrategy idleStrategy;
+
+    /**
+     * Constructs a {@link SchedulerGroup} with one event loop per available processor.
+     */
+    public SchedulerGroup(final IdleStrategy idleStrategy) {
+        this(Runtime.getRuntime().availableProcessors(), idleStrategy);
+    }
+
+    /**
+     * Constructs a {@link SchedulerGroup} with the given number of event loops.
+     */
+    public SchedulerGroup(final int loopCount, final IdleStrategy idleStrategy) {
+        checkArgument(loopCount > 0, "loopCount <= 0: %s", loopCount);
+        this.idleStrategy = checkNotNull(idleStrategy);
+
+        this.loops = new EventLoop[loopCount];
+        for (int i = 0; i < loopCount; ++i) {
+            loops[i] = new EventLoop(idleStrategy, "SchedulerGroup-" + i);
+        }
+        for (EventLoop loop : loops) {
+            loop.thread.start();
+        }
+    }
+
+    /**
+     * @return the number of event loops in this group
+     */
+    public int getLoopCount() {
+        return loops.length;
+    }
+
+    /**
+     * @return the event loop at the given index
+     */
+    public Scheduler getScheduler(final int index) {
+        return loops[index];
+    }
+
+    /**
+     * @return the event loop to which the given key, and every key equal to it, is routed
+     */
+    public Scheduler forKey(final Object key) {
+        // Spread the high bits downward, since many hash codes differ only in their high bits.
+        final int hashCode = key.hashCode();
+        final int spread = hashCode ^ (hashCode >>> 16);
+        return loops[Math.floorMod(spread, loops.length)];
+    }
+
+    /**
+     * @return the approximate number of actions waiting on the event loop at the given index
+     */
+    public int getQueueDepth(final int index) {
+        return loops[index].queueDepth.get();
+    }
+
+    /**
+     * Stops every event loop. Actions that have not yet begun will never run, and no further actions may be scheduled.
+     */
+    public void shutdown() {
+        for (EventLoop loop : loops) {
+            loop.shutdown();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("idleStrategy", idleStrategy)
+                .add("loops", loops.length)
+                .toString();
+    }
+}
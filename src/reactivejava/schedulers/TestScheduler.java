@@ -1,14 +1,12 @@
 package reactivejava.schedulers;
 
 import com.google.common.base.MoreObjects;
-import reactivejava.disposables.ActionDisposable;
 import reactivejava.disposables.Disposable;
 import reactivejava.disposables.SerialDisposable;
 import rx.functions.Action0;
 
-import java.util.Comparator;
-import java.util.Iterator;
-import java.util.PriorityQueue;
+import java.util.Arrays;
+import java.util.List;
 import java.util.concurrent.locks.ReentrantLock;
 
 import static com.google.common.base.Preconditions.checkArgument;
@@ -18,15 +16,53 @@ import static com.google.common.base.Preconditions.checkNotNull;
  * A scheduler that implements virtualized time, for use in testing.
  */
 public final class TestScheduler implements DateScheduler {
-    private static final class ScheduledAction {
+    /**
+     * An action in the queue, which is also the {@link Disposable} for it.
+     *
+     * Actions are ordered by date, and then by the order in which they were scheduled.
+     */
+    private final class ScheduledAction implements Disposable {
         private final long date;
+        private final long sequence;
         private final Action0 action;
 
-        private ScheduledAction(long date, Action0 action) {
+        // The position of this action in the heap, or -1 if it has been dequeued or disposed.
+        private int index = -1;
+        private volatile boolean disposed;
+
+        private ScheduledAction(long date, long sequence, Action0 action) {
             this.date = date;
+            this.sequence = sequence;
             this.action = checkNotNull(action);
         }
 
+        private boolean isBefore(ScheduledAction rhs) {
+            return (date != rhs.date) ? (date < rhs.date) : (sequence < rhs.sequence);
+        }
+
+        @Override
+        public boolean isDisposed() {
+            lock.lock();
+            try {
+                return disposed;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        public void dispose() {
+            lock.lock();
+            try {
+                disposed = true;
+                if (index >= 0) {
+                    removeAt(index);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
         @Override
         public String toString() {
             return MoreObjects.toStringHelper(this)
@@ -37,24 +73,35 @@ public final class TestScheduler implements DateScheduler {
     }
 
     private final ReentrantLock lock = new ReentrantLock();
-    private final PriorityQueue<ScheduledAction> scheduledActions = new PriorityQueue<>(8, new Comparator<ScheduledAction>() {
-        @Override
-        public int compare(ScheduledAction lhs, ScheduledAction rhs) {
-            if (lhs.date == rhs.date) {
-                return 0;
-            } else {
-                return (lhs.date < rhs.date) ? -1 : 1;
-            }
-        }
-    });
 
+    // A binary min-heap of scheduled actions, where each action records its own index so that it can be removed in
+    // O(log n) time.
+    private ScheduledAction[] scheduledActions = new ScheduledAction[8];
+    private int scheduledActionCount;
+    private long nextSequence;
+
+    private final boolean runsActionsOutsideLock;
     private long currentDate;
 
     /**
      * Constructs a {@link TestScheduler} with the given start date.
      */
     public TestScheduler(long startDate) {
+        this(startDate, false);
+    }
+
+    /**
+     * Constructs a {@link TestScheduler} with the given start date.
+     *
+     * If {@code runsActionsOutsideLock} is {@code true}, then while advancing, due actions are dequeued in batches under
+     * the scheduler's lock but are executed without holding it. This allows actions that schedule further work, or that
+     * interact with other threads, to do so without contending on the lock. Each batch holds only actions with the same
+     * date, so that actions still run in date order. In this mode, the scheduler must not be advanced from more than
+     * one thread at a time.
+     */
+    public TestScheduler(long startDate, boolean runsActionsOutsideLock) {
         this.currentDate = startDate;
+        this.runsActionsOutsideLock = runsActionsOutsideLock;
     }
 
     @Override
@@ -67,33 +114,103 @@ public final class TestScheduler implements DateScheduler {
         }
     }
 
-    private Disposable schedule(final ScheduledAction scheduledAction) {
+    private Disposable schedule(final long date, final Action0 action) {
         lock.lock();
         try {
-            scheduledActions.add(scheduledAction);
+            final ScheduledAction scheduledAction = new ScheduledAction(date, nextSequence++, action);
+            add(scheduledAction);
+            return scheduledAction;
         } finally {
             lock.unlock();
         }
+    }
 
-        return new ActionDisposable(new Action0() {
-            @Override
-            public void call() {
-                lock.lock();
-                for (Iterator<ScheduledAction> iterator = scheduledActions.iterator(); iterator.hasNext(); ) {
-                    if (iterator.next() == scheduledAction) {
-                        iterator.remove();
-                        break;
-                    }
-                }
-                lock.unlock();
+    private void add(final ScheduledAction scheduledAction) {
+        if (scheduledActionCount == scheduledActions.length) {
+            scheduledActions = Arrays.copyOf(scheduledActions, scheduledActionCount * 2);
+        }
+        siftUp(scheduledActionCount++, scheduledAction);
+    }
+
+    private ScheduledAction removeAt(final int index) {
+        final ScheduledAction removed = scheduledActions[index];
+        removed.index = -1;
+
+        final int lastIndex = --scheduledActionCount;
+        final ScheduledAction last = scheduledActions[lastIndex];
+        scheduledActions[lastIndex] = null;
+        if (index != lastIndex) {
+            siftDown(index, last);
+            if (scheduledActions[index] == last) {
+                siftUp(index, last);
             }
-        });
+        }
+        return removed;
+    }
 
+    private void siftUp(int index, final ScheduledAction scheduledAction) {
+        while (index > 0) {
+            final int parentIndex = (index - 1) >>> 1;
+            final ScheduledAction parent = scheduledActions[parentIndex];
+            if (!scheduledAction.isBefore(parent)) {
+                break;
+            }
+            scheduledActions[index] = parent;
+            parent.index = index;
+            index = parentIndex;
+        }
+        scheduledActions[index] = scheduledAction;
+        scheduledAction.index = index;
+    }
+
+    private void siftDown(int index, final ScheduledAction scheduledAction) {
+        final int half = scheduledActionCount >>> 1;
+        while (index < half) {
+            int childIndex = (index << 1) + 1;
+            ScheduledAction child = scheduledActions[childIndex];
+            final int rightIndex = childIndex + 1;
+            if ((rightIndex < scheduledActionCount) && scheduledActions[rightIndex].isBefore(child)) {
+                childIndex = rightIndex;
+                child = scheduledActions[childIndex];
+            }
+            if (!child.isBefore(scheduledAction)) {
+                break;
+            }
+            scheduledActions[index] = child;
+            child.index = index;
+            index = childIndex;
+        }
+        scheduledActions[index] = scheduledAction;
+        scheduledAction.index = index;
     }
 
     @Override
     public Disposable schedule(final Action0 action) {
-        return schedule(new ScheduledAction(currentDate, action));
+        return schedule(currentDate, action);
+    }
+
+    /**
+     * Enqueues the actions for the current date under a single acquisition of the lock. If any action is {@code null},
+     * none of them are enqueued.
+     */
+    @Override
+    public Disposable scheduleAll(final List<? extends Action0> actions) {
+        for (final Action0 action : actions) {
+            checkNotNull(action);
+        }
+        final ScheduledAction[] batch = new ScheduledAction[actions.size()];
+
+        lock.lock();
+        try {
+            for (int i = 0; i < batch.length; ++i) {
+                batch[i] = new ScheduledAction(currentDate, nextSequence++, actions.get(i));
+                add(batch[i]);
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        return new BatchDisposable(batch);
     }
 
     /**
@@ -107,7 +224,7 @@ public final class TestScheduler implements DateScheduler {
 
     @Override
     public Disposable scheduleAfterDate(final long date, final Action0 action) {
-        return schedule(new ScheduledAction(date, action));
+        return schedule(date, action);
     }
 
     private void scheduleAfterDate(final long date,
@@ -156,30 +273,30 @@ public final class TestScheduler implements DateScheduler {
      * Advances the virtualized clock by the given interval, dequeuing and executing any actions along the way.
      */
     public void advanceByInterval(long interval) {
-        lock.lock();
-        try {
-            advanceToDate(currentDate + interval);
-        } finally {
-            lock.unlock();
-        }
+        advanceToDate(getCurrentDate() + interval);
     }
 
     /**
      * Advances the virtualized clock to the given future date, dequeuing and executing any actions up until that point.
      */
     public void advanceToDate(final long newDate) {
+        if (runsActionsOutsideLock) {
+            advanceToDateOutsideLock(newDate);
+            return;
+        }
+
         lock.lock();
 
         try {
             checkArgument(currentDate < newDate, "newDate=%s, getCurrentDate=%s", newDate, currentDate);
             currentDate = newDate;
 
-            while (!scheduledActions.isEmpty()) {
-                if (newDate < scheduledActions.peek().date) {
+            while (scheduledActionCount > 0) {
+                if (newDate < scheduledActions[0].date) {
                     break;
                 }
 
-                final ScheduledAction scheduledAction = scheduledActions.remove();
+                final ScheduledAction scheduledAction = removeAt(0);
                 scheduledAction.action.call();
             }
         } finally {
@@ -187,6 +304,48 @@ public final class TestScheduler implements DateScheduler {
         }
     }
 
+    private void advanceToDateOutsideLock(final long newDate) {
+        lock.lock();
+        try {
+            checkArgument(currentDate < newDate, "newDate=%s, getCurrentDate=%s", newDate, currentDate);
+            currentDate = newDate;
+        } finally {
+            lock.unlock();
+        }
+
+        ScheduledAction[] batch = new ScheduledAction[16];
+        while (true) {
+            int batchSize = 0;
+
+            lock.lock();
+            try {
+                if ((scheduledActionCount == 0) || (newDate < scheduledActions[0].date)) {
+                    break;
+                }
+
+                final long batchDate = scheduledActions[0].date;
+                while ((scheduledActionCount > 0) && (scheduledActions[0].date == batchDate)) {
+                    if (batchSize == batch.length) {
+                        batch = Arrays.copyOf(batch, batchSize * 2);
+                    }
+                    batch[batchSize++] = removeAt(0);
+                }
+            } finally {
+                lock.unlock();
+            }
+
+            // Actions scheduled by this batch at or before newDate are dequeued by a later batch.
+            for (int i = 0; i < batchSize; ++i) {
+                final ScheduledAction scheduledAction = batch[i];
+                batch[i] = null;
+                // An earlier action in this batch may have disposed this one after it was dequeued.
+                if (!scheduledAction.disposed) {
+                    scheduledAction.action.call();
+                }
+            }
+        }
+    }
+
     /**
      * Dequeues and executes all scheduled actions, leaving the scheduler's date at {@link Long#MAX_VALUE}.
      */
@@ -197,7 +356,7 @@ public final class TestScheduler implements DateScheduler {
     @Override
     public String toString() {
         return MoreObjects.toStringHelper(this)
-                .add("scheduledActions", scheduledActions)
+                .add("scheduledActions", Arrays.asList(scheduledActions).subList(0, scheduledActionCount))
                 .toString();
     }
 }
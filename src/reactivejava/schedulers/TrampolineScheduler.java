@@ -0,0 +1,129 @@
+package reactivejava.schedulers;
+
+import reactivejava.disposables.Disposable;
+import rx.functions.Action0;
+
+import java.util.ArrayDeque;
+import java.util.List;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * A scheduler that performs work synchronously like {@link ImmediateScheduler}, but which queues any work scheduled
+ * from within an action instead of performing it on the current stack.
+ *
+ * The outermost call to {@link #schedule(Action0)} on a thread performs its action, and then drains every action
+ * queued by it (and by those actions, in turn) in FIFO order before returning. This keeps the stack depth constant
+ * for producers that recursively reschedule themselves.
+ */
+public final class TrampolineScheduler implements Scheduler {
+    public static final TrampolineScheduler INSTANCE = new TrampolineScheduler();
+
+    /**
+     * An action queued by a nested call, which is also the {@link Disposable} for it.
+     */
+    private static final class QueuedAction implements Disposable {
+        private Action0 action;
+
+        private QueuedAction(final Action0 action) {
+            this.action = action;
+        }
+
+        @Override
+        public boolean isDisposed() {
+            return action == null;
+        }
+
+        @Override
+        public void dispose() {
+            action = null;
+        }
+    }
+
+    private static final class State {
+        private final ArrayDeque<QueuedAction> queue = new ArrayDeque<>();
+        private boolean draining;
+    }
+
+    private static final ThreadLocal<State> STATE = new ThreadLocal<State>() {
+        @Override
+        protected State initialValue() {
+            return new State();
+        }
+    };
+
+    private TrampolineScheduler() {
+    }
+
+    /**
+     * Performs the action synchronously if no other action is being performed on this thread, and returns
+     * {@code null}. Otherwise queues the action, and returns a disposable that can be used to cancel it before it
+     * begins.
+     */
+    @Override
+    public Disposable schedule(final Action0 action) {
+        checkNotNull(action);
+
+        final State state = STATE.get();
+        if (state.draining) {
+            final QueuedAction queuedAction = new QueuedAction(action);
+            state.queue.add(queuedAction);
+            return queuedAction;
+        }
+
+        state.draining = true;
+        try {
+            action.call();
+            drain(state);
+        } finally {
+            // If an action threw, discard the remaining work rather than running it on a later, unrelated call.
+            state.queue.clear();
+            state.draining = false;
+        }
+        return null;
+    }
+
+    /**
+     * Queues the actions, and then performs them synchronously in order if no other action is being performed on this
+     * thread, and returns {@code null}. Otherwise returns a disposable that can be used to cancel every action in the
+     * batch that has not yet begun. If any action is {@code null}, none of them are queued.
+     */
+    @Override
+    public Disposable scheduleAll(final List<? extends Action0> actions) {
+        for (final Action0 action : actions) {
+            checkNotNull(action);
+        }
+
+        final State state = STATE.get();
+        if (state.draining) {
+            final QueuedAction[] queuedActions = new QueuedAction[actions.size()];
+            for (int i = 0; i < queuedActions.length; ++i) {
+                queuedActions[i] = new QueuedAction(actions.get(i));
+                state.queue.add(queuedActions[i]);
+            }
+            return new BatchDisposable(queuedActions);
+        }
+
+        state.draining = true;
+        try {
+            for (final Action0 action : actions) {
+                state.queue.add(new QueuedAction(action));
+            }
+            drain(state);
+        } finally {
+            state.queue.clear();
+            state.draining = false;
+        }
+        return null;
+    }
+
+    private static void drain(final State state) {
+        for (QueuedAction queuedAction = state.queue.poll(); queuedAction != null; queuedAction = state.queue.poll()) {
+            final Action0 queued = queuedAction.action;
+            if (queued != null) {
+                queuedAction.action = null;
+                queued.call();
+            }
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package reactivejava.schedulers;
+
+import com.google.common.base.MoreObjects;
+import reactivejava.disposables.Disposable;
+import rx.functions.Action0;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * A scheduler that runs each action on its own virtual thread, allowing actions to block without tying up a platform
+ * thread.
+ *
+ * Dates are measured in milliseconds, as returned by {@link System#currentTimeMillis()}.
+ *
+ * An optional concurrency limit bounds the number of actions that may run at once. Actions that are waiting for their
+ * date, or waiting for a permit, do not count against this limit.
+ */
+public final class VirtualThreadScheduler implements DateScheduler {
+    private static final int PENDING = 0;
+    private static final int RUNNING = 1;
+    private static final int DISPOSED = 2;
+
+    /**
+     * The work performed by a single virtual thread, which is also the {@link Disposable} for that work.
+     */
+    private final class Task implements Runnable, Disposable {
+        private final Action0 action;
+        private final long date;
+        private final long repeatInterval;
+        private final Thread thread;
+        private final AtomicInteger state = new AtomicInteger(PENDING);
+
+        private Task(final Action0 action, final long date, final long repeatInterval) {
+            this.action = checkNotNull(action);
+            this.date = date;
+            this.repeatInterval = repeatInterval;
+            this.thread = Thread.ofVirtual().unstarted(this);
+        }
+
+        @Override
+        public void run() {
+            try {
+                long nextDate = date;
+                do {
+                    sleepUntil(nextDate);
+                    if (!runOnce()) {
+                        return;
+                    }
+                    nextDate += repeatInterval;
+                } while (repeatInterval > 0);
+            } catch (InterruptedException e) {
+                // Disposed while sleeping or waiting for a permit.
+            }
+        }
+
+        /**
+         * Runs the action once, holding a permit if this scheduler is bounded.
+         *
+         * @return {@code false} if this task was disposed before the action could run
+         */
+        private boolean runOnce() throws InterruptedException {
+            if (permits != null) {
+                permits.acquire();
+            }
+            try {
+                if (!state.compareAndSet(PENDING, RUNNING)) {
+                    return false;
+                }
+                try {
+                    action.call();
+                } finally {
+                    // Return to pending so that a repeating action can run again, unless disposed meanwhile.
+                    state.compareAndSet(RUNNING, PENDING);
+                }
+                return true;
+            } finally {
+                if (permits != null) {
+                    permits.release();
+                }
+            }
+        }
+
+        @Override
+        public boolean isDisposed() {
+            return state.get() == DISPOSED;
+        }
+
+        @Override
+        public void dispose() {
+            if (state.getAndSet(DISPOSED) != DISPOSED) {
+                thread.interrupt();
+            }
+        }
+    }
+
+    private final Semaphore permits;
+    private final int maxConcurrency;
+
+    /**
+     * Constructs a {@link VirtualThreadScheduler} that places no limit on the number of concurrently running actions.
+     */
+    public VirtualThreadScheduler() {
+        this.permits = null;
+        this.maxConcurrency = Integer.MAX_VALUE;
+    }
+
+    /**
+     * Constructs a {@link VirtualThreadScheduler} that runs at most {@code maxConcurrency} actions at once.
+     */
+    public VirtualThreadScheduler(final int maxConcurrency) {
+        checkArgument(maxConcurrency > 0, "maxConcurrency <= 0: %s", maxConcurrency);
+        this.permits = new Semaphore(maxConcurrency);
+        this.maxConcurrency = maxConcurrency;
+    }
+
+    private void sleepUntil(final long date) throws InterruptedException {
+        for (long delay = date - getCurrentDate(); delay > 0; delay = date - getCurrentDate()) {
+            Thread.sleep(delay);
+        }
+    }
+
+    private Disposable schedule(final Action0 action, final long date, final long repeatInterval) {
+        final Task task = new Task(action, date, repeatInterval);
+        task.thread.start();
+        return task;
+    }
+
+    @Override
+    public long getCurrentDate() {
+        return System.currentTimeMillis();
+    }
+
+    /**
+     * Schedules an action on a new virtual thread.
+     *
+     * Returns a disposable that cancels the work if it has not begun, and otherwise interrupts its thread.
+     */
+    @Override
+    public Disposable schedule(final Action0 action) {
+        return schedule(action, getCurrentDate(), 0);
+    }
+
+    @Override
+    public Disposable scheduleAfterDate(final long date, final Action0 action) {
+        return schedule(action, date, 0);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * A single virtual thread runs every repetition, sleeping between them.
+     */
+    @Override
+    public Disposable scheduleAfterDate(final long date, final Action0 action, final long repeatInterval) {
+        checkArgument(repeatInterval > 0, "repeatInterval <= 0: %s", repeatInterval);
+        return schedule(action, date, repeatInterval);
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("maxConcurrency", maxConcurrency)
+                .toString();
+    }
+}
@@ -0,0 +1,89 @@
+package reactivejava.schedulers;
+
+import org.junit.Test;
+import reactivejava.disposables.Disposable;
+import rx.functions.Action0;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+import static org.junit.Assert.assertEquals;
+
+public class HashedWheelSchedulerTest {
+    private final AtomicLong nanos = new AtomicLong();
+
+    private final LongSupplier clock = new LongSupplier() {
+        @Override
+        public long getAsLong() {
+            return nanos.get();
+        }
+    };
+
+    // A wheel with a 1 ms tick, which advances only when the test calls advance().
+    private final HashedWheelScheduler scheduler =
+            new HashedWheelScheduler(ImmediateScheduler.INSTANCE, 1, 16, 2, clock, false);
+
+    private void advance(final int ticks) {
+        for (int i = 0; i < ticks; ++i) {
+            nanos.addAndGet(TimeUnit.MILLISECONDS.toNanos(1));
+            scheduler.tick();
+        }
+    }
+
+    private static Action0 record(final List<String> events, final String event) {
+        return new Action0() {
+            @Override
+            public void call() {
+                events.add(event);
+            }
+        };
+    }
+
+    @Test
+    public void testPastDatedRepeatSkipsMissedRepetitions() {
+        final AtomicInteger runs = new AtomicInteger();
+        final long hourAgo = scheduler.getCurrentDate() - TimeUnit.HOURS.toMillis(1);
+        scheduler.scheduleAfterDate(hourAgo, new Action0() {
+            @Override
+            public void call() {
+                runs.incrementAndGet();
+            }
+        }, 10);
+
+        // Rather than one run per missed interval, the repeat runs once, and then keeps its interval.
+        advance(1);
+        assertEquals(1, runs.get());
+        advance(8);
+        assertEquals(1, runs.get());
+        advance(1);
+        assertEquals(2, runs.get());
+    }
+
+    @Test
+    public void testFiresInDateOrderAndSkipsDisposed() {
+        final List<String> events = new ArrayList<>();
+        final long now = scheduler.getCurrentDate();
+        scheduler.scheduleAfterDate(now + 40, record(events, "a"));
+        scheduler.scheduleAfterDate(now + 3, record(events, "b"));
+        final Disposable disposable = scheduler.scheduleAfterDate(now + 4, record(events, "c"));
+        scheduler.scheduleAfterDate(now + 20, record(events, "d"));
+
+        advance(2);
+        disposable.dispose();
+        advance(50);
+
+        assertEquals(Arrays.asList("b", "d", "a"), events);
+    }
+
+    @Test
+    public void testDatesFollowTheNanoClock() {
+        final long date = scheduler.getCurrentDate();
+        advance(5);
+        assertEquals(date + 5, scheduler.getCurrentDate());
+    }
+}